@@ -0,0 +1,161 @@
+package com.pilotplayz.duelarenas;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable area of an arena, worked out once when the arena is loaded: either the custom box
+ * between two corners or a sphere around the center. Membership tests are a few primitive
+ * comparisons and never allocate.
+ * <p>
+ * The spawn points a match teleports players to are computed here as well.
+ */
+final class ArenaBounds {
+
+    // Offsets from the box center for generated 1v1 and 2v2 spawns: 1v1 uses the first two
+    private static final double SPAWN_OFFSET = 1.5;
+    private static final double[][] SPAWN_OFFSETS = {
+            {-SPAWN_OFFSET, 0},
+            {SPAWN_OFFSET, 0},
+            {0, -SPAWN_OFFSET},
+            {0, SPAWN_OFFSET}
+    };
+
+    final World world;
+    final UUID worldId;
+    final boolean box;
+
+    // The box, or the bounding box of the sphere
+    final double minX, minY, minZ, maxX, maxY, maxZ;
+
+    // Block coordinates of the box corners, for building the glass walls
+    final int blockMinX, blockMinY, blockMinZ, blockMaxX, blockMaxY, blockMaxZ;
+
+    private final double centerX, centerY, centerZ, radiusSquared;
+
+    private final Location[] spawns;
+    private final Location fallbackSpawn;
+
+    private ArenaBounds(World world, boolean box,
+                        double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                        double centerX, double centerY, double centerZ, double radius,
+                        Location[] spawns, Location fallbackSpawn) {
+        this.world = world;
+        this.worldId = world.getUID();
+        this.box = box;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.blockMinX = (int) Math.floor(minX);
+        this.blockMinY = (int) Math.floor(minY);
+        this.blockMinZ = (int) Math.floor(minZ);
+        this.blockMaxX = (int) Math.floor(maxX);
+        this.blockMaxY = (int) Math.floor(maxY);
+        this.blockMaxZ = (int) Math.floor(maxZ);
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.centerZ = centerZ;
+        this.radiusSquared = radius * radius;
+        this.spawns = spawns;
+        this.fallbackSpawn = fallbackSpawn;
+    }
+
+    /**
+     * Box between two corners in the same world. Spawns are generated around the box center,
+     * just above the floor: in a cross for up to four players, on a circle for more.
+     */
+    static ArenaBounds box(Location corner1, Location corner2, int maxPlayers) {
+        double minX = Math.min(corner1.getX(), corner2.getX());
+        double maxX = Math.max(corner1.getX(), corner2.getX());
+        double minY = Math.min(corner1.getY(), corner2.getY());
+        double maxY = Math.max(corner1.getY(), corner2.getY());
+        double minZ = Math.min(corner1.getZ(), corner2.getZ());
+        double maxZ = Math.max(corner1.getZ(), corner2.getZ());
+
+        World world = corner1.getWorld();
+        double cx = (minX + maxX) / 2.0;
+        double cz = (minZ + maxZ) / 2.0;
+        double y = minY + 1.0; // just above floor
+
+        Location[] spawns;
+        if (maxPlayers <= SPAWN_OFFSETS.length) {
+            int count = maxPlayers == 2 ? 2 : SPAWN_OFFSETS.length;
+            spawns = new Location[count];
+            for (int i = 0; i < count; i++) {
+                spawns[i] = new Location(world, cx + SPAWN_OFFSETS[i][0], y, cz + SPAWN_OFFSETS[i][1], 0f, 0f);
+            }
+        } else {
+            int count = maxPlayers;
+            spawns = new Location[count];
+            // Larger matches: evenly around a circle, kept a block inside the walls
+            double ring = Math.max(SPAWN_OFFSET, Math.min(maxX - minX, maxZ - minZ) / 2.0 - 1.0);
+            for (int i = 0; i < count; i++) {
+                double angle = 2 * Math.PI * i / count;
+                spawns[i] = new Location(world, cx + Math.cos(angle) * ring, y, cz + Math.sin(angle) * ring, 0f, 0f);
+            }
+        }
+
+        return new ArenaBounds(world, true, minX, minY, minZ, maxX, maxY, maxZ,
+                cx, (minY + maxY) / 2.0, cz, 0, spawns, spawns[spawns.length - 1]);
+    }
+
+    /**
+     * Sphere around the center. Spawns are the configured points; missing ones fall back to
+     * the center.
+     */
+    static ArenaBounds sphere(Location center, double radius, List<Location> spawnPoints) {
+        Location[] spawns = new Location[spawnPoints == null ? 0 : spawnPoints.size()];
+        for (int i = 0; i < spawns.length; i++) {
+            Location loc = spawnPoints.get(i);
+            spawns[i] = loc != null ? loc.clone() : center.clone();
+        }
+
+        double x = center.getX();
+        double y = center.getY();
+        double z = center.getZ();
+        return new ArenaBounds(center.getWorld(), false,
+                x - radius, y - radius, z - radius, x + radius, y + radius, z + radius,
+                x, y, z, radius, spawns, center.clone());
+    }
+
+    boolean contains(Location loc) {
+        return contains(loc.getWorld(), loc.getX(), loc.getY(), loc.getZ());
+    }
+
+    boolean contains(World w, double x, double y, double z) {
+        if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
+            return false;
+        }
+        if (w == null || !worldId.equals(w.getUID())) {
+            return false;
+        }
+        if (box) {
+            return true;
+        }
+        double dx = x - centerX;
+        double dy = y - centerY;
+        double dz = z - centerZ;
+        return dx * dx + dy * dy + dz * dz <= radiusSquared;
+    }
+
+    /**
+     * @return a fresh copy of the spawn for the player with this index in the match
+     */
+    Location spawn(int index) {
+        Location loc = index >= 0 && index < spawns.length ? spawns[index] : fallbackSpawn;
+        return loc.clone();
+    }
+
+    /**
+     * Chunk columns the area overlaps, as {minChunkX, minChunkZ, maxChunkX, maxChunkZ}.
+     */
+    int[] chunkExtent() {
+        return new int[]{blockMinX >> 4, blockMinZ >> 4, blockMaxX >> 4, blockMaxZ >> 4};
+    }
+}
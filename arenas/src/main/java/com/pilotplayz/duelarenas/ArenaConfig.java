@@ -0,0 +1,115 @@
+package com.pilotplayz.duelarenas;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Typed settings of one arena, parsed once from {@code arenas.<name>} and changed in memory by
+ * the setup commands. {@link ArenaConfigStore} writes them back.
+ */
+final class ArenaConfig {
+
+    /**
+     * A location as stored in the config. Keeps the world by name, so a point in a world that
+     * isn't loaded survives a save.
+     */
+    record Point(String world, double x, double y, double z, float yaw, float pitch) {
+
+        static Point of(Location loc) {
+            return new Point(loc.getWorld().getName(), loc.getX(), loc.getY(), loc.getZ(), loc.getYaw(), loc.getPitch());
+        }
+
+        /** @return null if there is no point under the key */
+        static Point read(ConfigurationSection parent, String key) {
+            ConfigurationSection section = parent.getConfigurationSection(key);
+            if (section == null) return null;
+            String world = section.getString("world");
+            if (world == null || world.isEmpty()) return null;
+            return new Point(world, section.getDouble("x"), section.getDouble("y"), section.getDouble("z"),
+                    (float) section.getDouble("yaw", 0.0), (float) section.getDouble("pitch", 0.0));
+        }
+
+        void write(ConfigurationSection parent, String key) {
+            ConfigurationSection section = parent.createSection(key);
+            section.set("world", world);
+            section.set("x", x);
+            section.set("y", y);
+            section.set("z", z);
+            section.set("yaw", yaw);
+            section.set("pitch", pitch);
+        }
+
+        /** @return the location, or null if its world is not loaded */
+        Location toLocation() {
+            World w = Bukkit.getWorld(world);
+            return w == null ? null : new Location(w, x, y, z, yaw, pitch);
+        }
+    }
+
+    final String name;
+    int teamSize;
+    int teams;
+    double radius;
+    Point center;
+    Point box1;
+    Point box2;
+    // Spawn number (from 1) -> point
+    final Map<Integer, Point> spawns = new TreeMap<>();
+
+    ArenaConfig(String name, int teamSize, int teams) {
+        this.name = name;
+        this.teamSize = teamSize;
+        this.teams = teams;
+    }
+
+    int players() {
+        return teamSize * teams;
+    }
+
+    /** @return an independent copy, for handing to the I/O thread */
+    ArenaConfig copy() {
+        ArenaConfig copy = new ArenaConfig(name, teamSize, teams);
+        copy.radius = radius;
+        copy.center = center;
+        copy.box1 = box1;
+        copy.box2 = box2;
+        copy.spawns.putAll(spawns);
+        return copy;
+    }
+
+    static ArenaConfig read(String name, ConfigurationSection section) {
+        ArenaConfig config = new ArenaConfig(name, section.getInt("team-size", 1), section.getInt("teams", 2));
+        config.radius = section.getDouble("radius", 0);
+        config.center = Point.read(section, "center");
+        config.box1 = Point.read(section, "box1");
+        config.box2 = Point.read(section, "box2");
+        for (String key : section.getKeys(false)) {
+            if (!key.startsWith("spawn")) continue;
+            try {
+                int index = Integer.parseInt(key.substring("spawn".length()));
+                Point point = Point.read(section, key);
+                if (point != null) config.spawns.put(index, point);
+            } catch (NumberFormatException e) {
+                // Not a spawn key
+            }
+        }
+        return config;
+    }
+
+    void write(ConfigurationSection section) {
+        section.set("team-size", teamSize);
+        section.set("teams", teams);
+        if (radius > 0) section.set("radius", radius);
+        if (center != null) center.write(section, "center");
+        if (box1 != null) box1.write(section, "box1");
+        if (box2 != null) box2.write(section, "box2");
+        for (Map.Entry<Integer, Point> spawn : spawns.entrySet()) {
+            spawn.getValue().write(section, "spawn" + spawn.getKey());
+        }
+    }
+}
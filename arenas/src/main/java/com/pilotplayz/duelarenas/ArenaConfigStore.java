@@ -0,0 +1,151 @@
+package com.pilotplayz.duelarenas;
+
+import com.pilotplayz.common.AsyncIo;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+/**
+ * The {@code arenas} section of config.yml as {@link ArenaConfig}s, parsed once on enable.
+ * <p>
+ * Setup commands change the model and call {@link #changed()}. Saving waits until no change has
+ * come in for a moment, so a burst of commands is one write. The main thread only copies the
+ * arenas; the I/O lane puts them into config.yml as it was loaded, renders the YAML and moves
+ * it over the old file from a temporary one.
+ */
+final class ArenaConfigStore {
+
+    // Quiet time after the last change before the file is written
+    private static final long SAVE_DELAY_TICKS = 20L;
+
+    private final JavaPlugin plugin;
+    private final File file;
+    private final AsyncIo.Lane io;
+
+    private final Map<String, ArenaConfig> arenas = new LinkedHashMap<>();
+    // config.yml as loaded; every save starts from it, so other settings and their order stay
+    private String loadedYaml;
+    private BukkitTask pendingSave;
+
+    ArenaConfigStore(JavaPlugin plugin, AsyncIo.Lane io) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "config.yml");
+        this.io = io;
+    }
+
+    /** Parses every arena from the plugin's config. */
+    void load() {
+        arenas.clear();
+        loadedYaml = plugin.getConfig().saveToString();
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("arenas");
+        if (section == null) return;
+        for (String name : section.getKeys(false)) {
+            ConfigurationSection arena = section.getConfigurationSection(name);
+            if (arena != null) {
+                arenas.put(name, ArenaConfig.read(name, arena));
+            }
+        }
+    }
+
+    ArenaConfig get(String name) {
+        return arenas.get(name);
+    }
+
+    Collection<ArenaConfig> all() {
+        return Collections.unmodifiableCollection(arenas.values());
+    }
+
+    ArenaConfig create(String name, ArenaMode mode) {
+        ArenaConfig config = new ArenaConfig(name, mode.teamSize(), mode.teams());
+        arenas.put(name, config);
+        changed();
+        return config;
+    }
+
+    boolean remove(String name) {
+        if (arenas.remove(name) == null) return false;
+        changed();
+        return true;
+    }
+
+    /** Schedules a save, pushing back one that hasn't run yet. */
+    void changed() {
+        if (pendingSave != null) {
+            pendingSave.cancel();
+        }
+        pendingSave = Bukkit.getScheduler().runTaskLater(plugin, this::save, SAVE_DELAY_TICKS);
+    }
+
+    /** @return completes once the file is written */
+    private CompletableFuture<Void> save() {
+        pendingSave = null;
+        List<ArenaConfig> snapshot = new ArrayList<>(arenas.size());
+        for (ArenaConfig arena : arenas.values()) {
+            snapshot.add(arena.copy());
+        }
+        String base = loadedYaml;
+        return io.run(() -> write(base, snapshot));
+    }
+
+    /** Puts the arenas into the loaded config and replaces config.yml with it. I/O lane. */
+    private void write(String base, List<ArenaConfig> snapshot) {
+        Path target = file.toPath();
+        try {
+            YamlConfiguration yaml = new YamlConfiguration();
+            yaml.loadFromString(base);
+            ConfigurationSection section = yaml.getConfigurationSection("arenas");
+            if (section == null) {
+                section = yaml.createSection("arenas");
+            }
+            Set<String> names = new HashSet<>();
+            for (ArenaConfig arena : snapshot) {
+                names.add(arena.name);
+                // Replaces an existing section in place, so arenas keep their order in the file
+                arena.write(section.createSection(arena.name));
+            }
+            for (String name : section.getKeys(false)) {
+                if (!names.contains(name)) section.set(name, null);
+            }
+
+            Files.createDirectories(target.getParent());
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.writeString(tmp, yaml.saveToString(), StandardCharsets.UTF_8);
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | InvalidConfigurationException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not save " + file.getName() + ".", e);
+        }
+    }
+
+    /** Hands a pending save to the I/O lane right away. For onDisable, before the lane is drained. */
+    void close() {
+        if (pendingSave != null) {
+            pendingSave.cancel();
+            save();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.pilotplayz.duelarenas;
+
+import com.pilotplayz.duelarenas.DuelArenasPlugin.Arena;
+import org.bukkit.Location;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Arenas by the chunk columns their area overlaps, in an open-addressing table on packed chunk
+ * keys with linear probing. Finding the arenas that could contain a location is a probe of a
+ * primitive array, without boxing or allocating; a location far away from every arena gets an
+ * empty array back without touching any arena.
+ * <p>
+ * The index does not look at worlds, so callers still have to check the location against each
+ * arena it returns.
+ */
+final class ArenaIndex {
+
+    private static final Arena[] NONE = new Arena[0];
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int INITIAL_CAPACITY = 64;
+
+    // A slot is free while its value is null, so every key, including 0 for chunk 0,0, is usable
+    private long[] keys;
+    private Arena[][] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    ArenaIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    void rebuild(Collection<Arena> arenas) {
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+        for (Arena arena : arenas) {
+            add(arena);
+        }
+    }
+
+    void add(Arena arena) {
+        int[] extent = arena.chunkExtent();
+        if (extent == null) return;
+
+        for (int cx = extent[0]; cx <= extent[2]; cx++) {
+            for (int cz = extent[1]; cz <= extent[3]; cz++) {
+                long key = chunkKey(cx, cz);
+                int i = slotOf(key);
+                Arena[] arenas = values[i];
+                if (arenas != null) {
+                    Arena[] merged = Arrays.copyOf(arenas, arenas.length + 1);
+                    merged[arenas.length] = arena;
+                    values[i] = merged;
+                    continue;
+                }
+                keys[i] = key;
+                values[i] = new Arena[]{arena};
+                if (++size >= resizeAt) {
+                    rehash(keys.length << 1);
+                }
+            }
+        }
+    }
+
+    /** Removes the arena from the chunks its current area overlaps. */
+    void remove(Arena arena) {
+        int[] extent = arena.chunkExtent();
+        if (extent == null) return;
+
+        for (int cx = extent[0]; cx <= extent[2]; cx++) {
+            for (int cz = extent[1]; cz <= extent[3]; cz++) {
+                int i = slotOf(chunkKey(cx, cz));
+                Arena[] arenas = values[i];
+                if (arenas == null) continue;
+
+                Arena[] kept = Arrays.stream(arenas).filter(a -> a != arena).toArray(Arena[]::new);
+                if (kept.length > 0) {
+                    values[i] = kept;
+                } else {
+                    delete(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return arenas whose area overlaps the location's chunk column; never null, don't modify
+     */
+    Arena[] near(Location loc) {
+        return near(loc.getBlockX(), loc.getBlockZ());
+    }
+
+    /**
+     * @return arenas whose area overlaps the chunk column of the block; never null, don't modify
+     */
+    Arena[] near(int blockX, int blockZ) {
+        long key = chunkKey(blockX >> 4, blockZ >> 4);
+        int i = home(key);
+        Arena[] arenas;
+        while ((arenas = values[i]) != null) {
+            if (keys[i] == key) return arenas;
+            i = (i + 1) & mask;
+        }
+        return NONE;
+    }
+
+    static long chunkKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+
+    /** @return the slot holding the key, or the free slot it would go in */
+    private int slotOf(long key) {
+        int i = home(key);
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private int home(long key) {
+        // Fibonacci hashing, as in BlockKeySet: neighbouring chunks differ only in a few bits
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    /** Empties the slot and moves later entries of its probe run back, so lookups still find them. */
+    private void delete(int free) {
+        values[free] = null;
+        size--;
+        int i = free;
+        while (true) {
+            i = (i + 1) & mask;
+            if (values[i] == null) return;
+            // The entry may move back only if the free slot lies between its home and where it is
+            if (((i - home(keys[i])) & mask) >= ((i - free) & mask)) {
+                keys[free] = keys[i];
+                values[free] = values[i];
+                values[i] = null;
+                free = i;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Arena[][] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] == null) continue;
+            int i = home(oldKeys[j]);
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Arena[capacity][];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+}
@@ -0,0 +1,56 @@
+package com.pilotplayz.duelarenas;
+
+import java.util.Locale;
+
+/**
+ * Team layout of a match: how many teams and how many players in each. All arenas with the
+ * same mode share one queue.
+ */
+record ArenaMode(int teamSize, int teams) {
+
+    // A match keeps one bit per team in an int
+    static final int MAX_TEAMS = 32;
+    static final int MAX_TEAM_SIZE = 16;
+
+    ArenaMode {
+        if (teamSize < 1) throw new IllegalArgumentException("team-size must be at least 1");
+        if (teamSize > MAX_TEAM_SIZE) throw new IllegalArgumentException("team-size must be at most " + MAX_TEAM_SIZE);
+        if (teams < 2) throw new IllegalArgumentException("teams must be at least 2");
+        if (teams > MAX_TEAMS) throw new IllegalArgumentException("teams must be at most " + MAX_TEAMS);
+    }
+
+    /**
+     * Parses the {@link #toString()} form, e.g. "2v2".
+     *
+     * @throws IllegalArgumentException if it is not a valid mode
+     */
+    static ArenaMode parse(String text) {
+        String[] sizes = text.toLowerCase(Locale.ROOT).split("v", -1);
+        try {
+            int teamSize = Integer.parseInt(sizes[0]);
+            for (String size : sizes) {
+                if (Integer.parseInt(size) != teamSize) {
+                    throw new IllegalArgumentException("all teams must be the same size");
+                }
+            }
+            return new ArenaMode(teamSize, sizes.length);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + text + "' is not a mode like 1v1 or 2v2");
+        }
+    }
+
+    int players() {
+        return teamSize * teams;
+    }
+
+    /** 1v1, 2v2, 3v3v3 and so on. */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < teams; i++) {
+            if (i > 0) sb.append('v');
+            sb.append(teamSize);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package com.pilotplayz.duelarenas;
+
+import com.pilotplayz.duelarenas.DuelArenasPlugin.Arena;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * All configured arenas, plus the free ones of each {@link ArenaMode}. The {@link Matchmaker}
+ * takes a free arena for every group it pairs; an arena goes back once its match and the
+ * cooldown after it are over.
+ */
+final class ArenaPool {
+
+    private final Map<String, Arena> byName = new LinkedHashMap<>();
+    private final Map<ArenaMode, ArrayDeque<Arena>> free = new HashMap<>();
+
+    // Arenas replaced by a reload while they were still busy; kept until their match is over
+    private final Set<Arena> retired = new HashSet<>();
+
+    Arena get(String name) {
+        return byName.get(name);
+    }
+
+    Collection<Arena> all() {
+        return Collections.unmodifiableCollection(byName.values());
+    }
+
+    /** Current arenas plus retired ones whose match is still running. */
+    List<Arena> allIncludingRetired() {
+        List<Arena> list = new ArrayList<>(byName.values());
+        list.addAll(retired);
+        return list;
+    }
+
+    /** Modes that have at least one arena, free or not. */
+    Set<ArenaMode> modes() {
+        Set<ArenaMode> modes = new HashSet<>();
+        for (Arena arena : byName.values()) {
+            modes.add(arena.mode());
+        }
+        return modes;
+    }
+
+    /**
+     * Replaces every arena. An arena whose predecessor of the same name is still busy only
+     * becomes free once that match is over.
+     */
+    void reload(Collection<Arena> arenas) {
+        Map<String, Arena> old = new HashMap<>(byName);
+        byName.clear();
+        free.clear();
+
+        for (Arena arena : arenas) {
+            byName.put(arena.name(), arena);
+        }
+        for (Arena previous : old.values()) {
+            if (previous.isBusy()) {
+                retired.add(previous);
+            }
+        }
+        for (Arena arena : arenas) {
+            Arena previous = old.get(arena.name());
+            if (previous == null || !previous.isBusy()) {
+                free(arena.mode()).add(arena);
+            }
+        }
+    }
+
+    /**
+     * Swaps in a rebuilt arena under the name, or drops the name if {@code arena} is null. Like
+     * {@link #reload}, a busy predecessor is retired and its successor waits for that match.
+     *
+     * @return the arena the name had before, or null
+     */
+    Arena replace(String name, Arena arena) {
+        Arena previous = arena == null ? byName.remove(name) : byName.put(name, arena);
+        if (previous != null) {
+            ArrayDeque<Arena> arenas = free.get(previous.mode());
+            if (arenas != null) arenas.remove(previous);
+            if (previous.isBusy()) retired.add(previous);
+        }
+        if (arena != null && (previous == null || !previous.isBusy())) {
+            free(arena.mode()).add(arena);
+        }
+        return previous;
+    }
+
+    int freeCount(ArenaMode mode) {
+        ArrayDeque<Arena> arenas = free.get(mode);
+        return arenas == null ? 0 : arenas.size();
+    }
+
+    /** @return the free arena of the mode that has been free the longest, or null */
+    Arena takeFree(ArenaMode mode) {
+        ArrayDeque<Arena> arenas = free.get(mode);
+        return arenas == null ? null : arenas.poll();
+    }
+
+    /**
+     * The arena's match and cooldown are over; it can be handed the next match of its mode.
+     *
+     * @return true if the arena had been replaced and is now gone from the pool
+     */
+    boolean release(Arena arena) {
+        boolean wasRetired = retired.remove(arena);
+        if (wasRetired) {
+            // Replaced by a reload: free its successor instead, if it is not busy itself
+            arena = byName.get(arena.name());
+            if (arena == null) return true;
+        }
+        if (byName.get(arena.name()) != arena || arena.isBusy()) return wasRetired;
+
+        ArrayDeque<Arena> arenas = free(arena.mode());
+        if (!arenas.contains(arena)) {
+            arenas.add(arena);
+        }
+        return wasRetired;
+    }
+
+    private ArrayDeque<Arena> free(ArenaMode mode) {
+        return free.computeIfAbsent(mode, m -> new ArrayDeque<>());
+    }
+}
@@ -0,0 +1,120 @@
+package com.pilotplayz.duelarenas;
+
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Block data of an arena's whole volume, taken once before its first match so blocks changed
+ * during a match can be put back.
+ * <p>
+ * Stored palette-compressed: every distinct block data gets a palette index, and the indices are
+ * packed into longs with as few bits each as the palette needs (an entry never spans two longs).
+ * An arena of stone, air and a handful of decorations costs a few bits per block.
+ * <p>
+ * A snapshot starts out empty and is filled block by block with {@link #set} by a
+ * {@link SnapshotTask}, so the volume never has to be read in one tick. The packing starts at
+ * four bits per block and only widens (repacking what is there) when the palette outgrows it.
+ */
+final class ArenaSnapshot {
+
+    // Most arenas never need more than 16 block types, so they never repack
+    private static final int INITIAL_BITS = 4;
+
+    final int minX, minY, minZ, maxX, maxY, maxZ;
+
+    private final int sizeX, sizeZ, volume;
+    private BlockData[] palette = new BlockData[1 << INITIAL_BITS];
+    private int paletteSize;
+    // Only needed while the snapshot is being filled
+    private Map<BlockData, Integer> ids = new HashMap<>();
+    private int bits;
+    private int perLong;
+    private long mask;
+    private long[] data;
+
+    /** An empty snapshot of the blocks between the corners (inclusive), clamped to the world's height. */
+    ArenaSnapshot(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.minX = minX;
+        this.minY = Math.max(minY, world.getMinHeight());
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = Math.min(maxY, world.getMaxHeight() - 1);
+        this.maxZ = maxZ;
+        this.sizeX = maxX - minX + 1;
+        this.sizeZ = maxZ - minZ + 1;
+        this.volume = sizeX * Math.max(0, this.maxY - this.minY + 1) * sizeZ;
+        pack(INITIAL_BITS);
+    }
+
+    /** Records the block at a position inside the snapshot. Every position is set once, while filling. */
+    void set(int x, int y, int z, BlockData block) {
+        Integer id = ids.get(block);
+        if (id == null) {
+            id = paletteSize;
+            if (id == palette.length) {
+                palette = Arrays.copyOf(palette, palette.length * 2);
+                pack(bits + 1);
+            }
+            palette[paletteSize++] = block;
+            ids.put(block, id);
+        }
+        int i = index(x, y, z);
+        data[i / perLong] |= (id & mask) << ((i % perLong) * bits);
+    }
+
+    /** Called once every position is set; the snapshot is read-only from then on. */
+    void filled() {
+        ids = null;
+        palette = Arrays.copyOf(palette, Math.max(1, paletteSize));
+    }
+
+    boolean isEmpty() {
+        return volume == 0;
+    }
+
+    /** Moves the indices to a packing with the given bits per block. */
+    private void pack(int newBits) {
+        int newPerLong = 64 / newBits;
+        long newMask = (1L << newBits) - 1;
+        long[] packed = new long[(volume + newPerLong - 1) / newPerLong];
+        if (data != null) {
+            for (int i = 0; i < volume; i++) {
+                long id = (data[i / perLong] >>> ((i % perLong) * bits)) & mask;
+                packed[i / newPerLong] |= id << ((i % newPerLong) * newBits);
+            }
+        }
+        bits = newBits;
+        perLong = newPerLong;
+        mask = newMask;
+        data = packed;
+    }
+
+    private int index(int x, int y, int z) {
+        return ((y - minY) * sizeZ + (z - minZ)) * sizeX + (x - minX);
+    }
+
+    boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    /** @return the block data at the position when the snapshot was taken; don't modify */
+    BlockData blockAt(int x, int y, int z) {
+        int i = index(x, y, z);
+        int id = (int) ((data[i / perLong] >>> ((i % perLong) * bits)) & mask);
+        return palette[id];
+    }
+
+    /** Distinct block data in the snapshot. */
+    int paletteSize() {
+        return paletteSize;
+    }
+
+    /** Bytes the packed block indices take. */
+    long packedBytes() {
+        return data.length * 8L;
+    }
+}
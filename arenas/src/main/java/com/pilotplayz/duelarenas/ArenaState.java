@@ -0,0 +1,16 @@
+package com.pilotplayz.duelarenas;
+
+/**
+ * Where an arena is in its match cycle. Arenas only move forward through these states, from
+ * COOLDOWN back to IDLE; a match cancelled before the fight goes straight to COOLDOWN.
+ */
+public enum ArenaState {
+    /** Free for the next match. */
+    IDLE,
+    /** Players picked; the enclosure is being built, then the countdown before the fight runs. */
+    COUNTDOWN,
+    /** PvP is on until one team is left. */
+    FIGHTING,
+    /** Match over; glass and changed blocks are being removed before the arena is freed. */
+    COOLDOWN
+}
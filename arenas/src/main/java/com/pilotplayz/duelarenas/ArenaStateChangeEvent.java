@@ -0,0 +1,63 @@
+package com.pilotplayz.duelarenas;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Called right before an arena changes state. Starting a match (IDLE to COUNTDOWN) and starting
+ * the fight (COUNTDOWN to FIGHTING) can be cancelled: the players of a cancelled start go back to
+ * the queue, and a cancelled fight ends the match without a result. Moving to COOLDOWN or IDLE
+ * always happens.
+ */
+public final class ArenaStateChangeEvent extends Event implements Cancellable {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final DuelArenasPlugin.Arena arena;
+    private final ArenaState from;
+    private final ArenaState to;
+    private boolean cancelled;
+
+    ArenaStateChangeEvent(DuelArenasPlugin.Arena arena, ArenaState from, ArenaState to) {
+        this.arena = arena;
+        this.from = from;
+        this.to = to;
+    }
+
+    public DuelArenasPlugin.Arena getArena() {
+        return arena;
+    }
+
+    public ArenaState getFrom() {
+        return from;
+    }
+
+    public ArenaState getTo() {
+        return to;
+    }
+
+    public boolean isCancellable() {
+        return to == ArenaState.COUNTDOWN || to == ArenaState.FIGHTING;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Ignored for changes that can't be cancelled, see {@link #isCancellable()}. */
+    @Override
+    public void setCancelled(boolean cancel) {
+        this.cancelled = cancel && isCancellable();
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -0,0 +1,154 @@
+package com.pilotplayz.duelarenas;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Set of block positions packed into longs, stored in an open-addressing table with linear
+ * probing. Costs 8 to 16 bytes per block instead of a {@code Location} plus a hash set entry,
+ * and lookups never allocate.
+ * <p>
+ * Positions are packed like vanilla block positions: 26 bits x, 26 bits z, 12 bits y. The set
+ * knows nothing about worlds; keep one set per world.
+ */
+final class BlockKeySet {
+
+    // 0 marks a free slot; the block at 0,0,0 (which packs to 0) is tracked separately
+    private static final long FREE = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean containsZero;
+
+    BlockKeySet() {
+        this(64);
+    }
+
+    BlockKeySet(int expected) {
+        allocate(tableSizeFor(expected));
+    }
+
+    static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    static int unpackX(long key) {
+        return (int) (key >> 38);
+    }
+
+    static int unpackY(long key) {
+        return (int) (key << 52 >> 52);
+    }
+
+    static int unpackZ(long key) {
+        return (int) (key << 26 >> 38);
+    }
+
+    /**
+     * @return true if the key was not in the set yet
+     */
+    boolean add(long key) {
+        if (key == FREE) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int i = slot(key);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) return false;
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    boolean contains(long key) {
+        if (key == FREE) return containsZero;
+
+        int i = slot(key);
+        long k;
+        while ((k = keys[i]) != FREE) {
+            if (k == key) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    boolean contains(int x, int y, int z) {
+        return contains(pack(x, y, z));
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void forEach(LongConsumer action) {
+        if (containsZero) action.accept(FREE);
+        for (long key : keys) {
+            if (key != FREE) action.accept(key);
+        }
+    }
+
+    /** @return the keys in no particular order */
+    long[] toArray() {
+        long[] out = new long[size];
+        int i = 0;
+        if (containsZero) out[i++] = FREE;
+        for (long key : keys) {
+            if (key != FREE) out[i++] = key;
+        }
+        return out;
+    }
+
+    /** Empties the set. The table shrinks back to its default size if it grew large. */
+    void clear() {
+        size = 0;
+        containsZero = false;
+        if (keys.length > 1024) {
+            allocate(tableSizeFor(64));
+        } else {
+            Arrays.fill(keys, FREE);
+        }
+    }
+
+    private int slot(long key) {
+        // Fibonacci hashing: packed positions of neighbouring blocks differ only in low bits
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        allocate(capacity);
+        for (long key : old) {
+            if (key == FREE) continue;
+            int i = slot(key);
+            while (keys[i] != FREE) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expected / LOAD_FACTOR)) - 1) << 1;
+        return Math.max(16, capacity);
+    }
+}
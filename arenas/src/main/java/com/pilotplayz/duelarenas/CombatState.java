@@ -0,0 +1,43 @@
+package com.pilotplayz.duelarenas;
+
+import com.pilotplayz.duelarenas.DuelArenasPlugin.Arena;
+
+/**
+ * What damage arbitration needs to know about one online player. The zone flag is kept up to
+ * date by the movement checks and the rest by the arena as matches start, go live and end, so
+ * deciding a hit is a map lookup per player and a few compares, without touching locations or
+ * arenas. Main thread only.
+ */
+final class CombatState {
+
+    static final int NO_MATCH = 0;
+
+    // Inside the area of any arena, whether or not a match is running there
+    boolean inArenaZone;
+
+    // The match the player is still alive in, NO_MATCH if none
+    int matchId = NO_MATCH;
+    int team = -1;
+    Arena arena;
+
+    // The player's match has reached the fight
+    boolean pvpLive;
+
+    boolean inMatch() {
+        return matchId != NO_MATCH;
+    }
+
+    void joinMatch(Arena arena, int matchId, int team) {
+        this.arena = arena;
+        this.matchId = matchId;
+        this.team = team;
+        this.pvpLive = false;
+    }
+
+    void leaveMatch() {
+        arena = null;
+        matchId = NO_MATCH;
+        team = -1;
+        pvpLive = false;
+    }
+}
@@ -1,5 +1,7 @@
 package com.pilotplayz.duelarenas;
 
+import com.pilotplayz.common.AsyncIo;
+import com.pilotplayz.common.PerfMetrics;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -12,50 +14,169 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.Projectile;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockIgniteEvent;
+import org.bukkit.event.block.BlockMultiPlaceEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.BlockSpreadEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.PlayerBucketEmptyEvent;
+import org.bukkit.event.player.PlayerBucketFillEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.world.WorldLoadEvent;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitRunnable;
 
+import java.io.File;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 public final class DuelArenasPlugin extends JavaPlugin implements Listener, CommandExecutor {
 
-    private Arena arena1v1;
-    private Arena arena2v2;
+    private static final Pattern VALID_NAME = Pattern.compile("[a-z0-9_-]{1,32}");
 
-    // Map of players to the arena they are currently in a MATCH for
-    private final Map<UUID, Arena> activeMatchByPlayer = new HashMap<>();
+    // Countdown once the enclosure stands, and cooldown after a match
+    private static final int COUNTDOWN_TICKS = 40;
+    private static final int COOLDOWN_TICKS = 200;
 
-    // Temporary in-memory corners for custom boxes before /confirm
+    // Settings of every arena under arenas.<name>, saved in the background
+    private ArenaConfigStore arenaConfigs;
+
+    // Every arena under arenas.<name>, and which of them are free
+    private final ArenaPool arenas = new ArenaPool();
+
+    // Rating-bucketed queues per team layout, paired every few ticks
+    private Matchmaker matchmaker;
+
+    // Wins, losses, kills, ratings and match history, written behind in the background
+    private StatsStore stats;
+
+    // Runs config saves, journal appends and stats writes off the main thread
+    private AsyncIo io;
+
+    // Hot-path timings for /duelstats perf; off unless metrics.enabled, and free while off
+    private final PerfMetrics perf = new PerfMetrics();
+    private final PerfMetrics.Probe moveProbe = perf.probe("onPlayerMove", null);
+    private final PerfMetrics.Probe damageProbe = perf.probe("onDamage", null);
+    private final PerfMetrics.Probe blockBreakProbe = perf.probe("onBlockBreak", null);
+    private final PerfMetrics.Probe glassProbe = perf.probe("buildGlassBox", "blocks");
+
+    // Glass placed by the arenas, replayed on enable to clean up after a crash
+    private GlassJournal glassJournal;
+
+    // Arenas with a match, a cooldown or glass/restore work in progress; ticked by one task
+    private final Set<Arena> activeArenas = new LinkedHashSet<>();
+    private Arena[] tickBuffer = new Arena[0];
+
+    // Chunk -> arenas overlapping it, rebuilt whenever the arenas are (re)loaded
+    private final ArenaIndex arenaIndex = new ArenaIndex();
+
+    // Combat state of every online player: arena zone, match, team and whether their fight is on
+    private final Map<UUID, CombatState> combatStates = new HashMap<>();
+    private int nextMatchId = CombatState.NO_MATCH + 1;
+
+    // Temporary in-memory corners for custom boxes before /confirm, by arena name
     private final Map<String, Location> pendingBoxCorner1 = new HashMap<>();
     private final Map<String, Location> pendingBoxCorner2 = new HashMap<>();
 
     @Override
     public void onEnable() {
         saveDefaultConfig();
+        io = new AsyncIo("DuelArenas", getLogger());
+        boolean migrated = migrateLegacyArenas();
+        arenaConfigs = new ArenaConfigStore(this, io.lane("config"));
+        arenaConfigs.load();
+        if (migrated) {
+            arenaConfigs.changed();
+        }
+
+        glassJournal = new GlassJournal(this, new File(getDataFolder(), "glass.journal"), io.lane("glass journal"));
+        int restored = glassJournal.replay();
+        if (restored > 0) {
+            getLogger().warning("Removed " + restored + " arena glass block(s) left behind by an unclean shutdown.");
+        }
+
+        stats = new StatsStore(this, new File(getDataFolder(), "stats.db"), getConfig().getInt("stats.cache-size", 1000),
+                io.lane("stats"));
+        stats.start(getConfig().getLong("stats.flush-interval-ticks", 100L));
+        for (Player online : Bukkit.getOnlinePlayers()) {
+            stats.stats(online.getUniqueId());
+            combatStates.put(online.getUniqueId(), new CombatState());
+        }
+
+        matchmaker = new Matchmaker(arenas, stats::rating,
+                getConfig().getInt("matchmaking.bucket-width", 100),
+                getConfig().getDouble("matchmaking.widen-seconds", 10.0),
+                getConfig().getInt("matchmaking.max-bucket-spread", 5),
+                getConfig().getLong("matchmaking.interval-ticks", 20L));
+
+        perf.setEnabled(getConfig().getBoolean("metrics.enabled", false));
+        perf.startCsv(this, io.lane("metrics"), new File(getDataFolder(), "metrics.csv"),
+                getConfig().getLong("metrics.csv-interval-seconds", 60L));
+
         loadArenas();
+        matchmaker.start(this);
+        getServer().getScheduler().runTaskTimer(this, this::tickArenas, 1L, 1L);
 
         getServer().getPluginManager().registerEvents(this, this);
 
+        registerCommand("arena");
         registerCommand("arena1");
         registerCommand("arena2");
+        registerCommand("queue");
+        registerCommand("duelstats");
 
         getLogger().info("DuelArenas enabled.");
     }
 
     @Override
     public void onDisable() {
-        if (arena1v1 != null) arena1v1.clearGlassBox();
-        if (arena2v2 != null) arena2v2.clearGlassBox();
+        for (Arena arena : arenas.allIncludingRetired()) {
+            arena.clearGlassBoxNow();
+            arena.restoreChangesNow();
+        }
+        if (glassJournal != null) glassJournal.close();
+        if (stats != null) stats.close();
+        if (arenaConfigs != null) arenaConfigs.close();
+        // Everything above only queued its last writes; wait for them before the server goes on
+        if (io != null) io.drain(10, TimeUnit.SECONDS);
         getLogger().info("DuelArenas disabled.");
     }
 
+    /** Steps every busy arena; arenas that are done drop out until their next match. */
+    private void tickArenas() {
+        if (activeArenas.isEmpty()) return;
+        // Ticking can start or finish work of other arenas, so iterate over a copy
+        tickBuffer = activeArenas.toArray(tickBuffer);
+        for (int i = 0; i < tickBuffer.length && tickBuffer[i] != null; i++) {
+            Arena arena = tickBuffer[i];
+            tickBuffer[i] = null;
+            if (!arena.tick()) {
+                activeArenas.remove(arena);
+            }
+        }
+    }
+
     private void registerCommand(String name) {
         org.bukkit.command.PluginCommand cmd = getCommand(name);
         if (cmd == null) {
@@ -69,29 +190,96 @@ public final class DuelArenasPlugin extends JavaPlugin implements Listener, Comm
     // Arena loading & config helpers
     // ==============================
 
+    /**
+     * Configs from before the arena pool have fixed top-level {@code arena1} (1v1) and
+     * {@code arena2} (2v2) sections. Move them under {@code arenas} so they keep working.
+     *
+     * @return whether the config changed and needs saving
+     */
+    private boolean migrateLegacyArenas() {
+        boolean changed = migrateLegacyArena("arena1", 1);
+        changed |= migrateLegacyArena("arena2", 2);
+        return changed;
+    }
+
+    private boolean migrateLegacyArena(String key, int teamSize) {
+        ConfigurationSection legacy = getConfig().getConfigurationSection(key);
+        if (legacy == null) return false;
+
+        if (!legacy.getKeys(false).isEmpty() && !getConfig().contains("arenas." + key)) {
+            for (String path : legacy.getKeys(true)) {
+                if (!legacy.isConfigurationSection(path)) {
+                    getConfig().set("arenas." + key + "." + path, legacy.get(path));
+                }
+            }
+            getConfig().set("arenas." + key + ".team-size", teamSize);
+            getConfig().set("arenas." + key + ".teams", 2);
+            getLogger().info("Moved the old '" + key + "' section to 'arenas." + key + "' in config.yml.");
+        }
+        getConfig().set(key, null);
+        return true;
+    }
+
     private void loadArenas() {
-        this.arena1v1 = loadArena("arena1", 2);
-        this.arena2v2 = loadArena("arena2", 4);
+        List<Arena> loaded = new ArrayList<>();
+        for (ArenaConfig config : arenaConfigs.all()) {
+            Arena arena = createArena(config);
+            if (arena != null) {
+                loaded.add(arena);
+            }
+        }
+        if (loaded.isEmpty()) {
+            getLogger().warning("No arenas are set up. Use /arena create <name> <team-size> to add one.");
+        }
+
+        arenas.reload(loaded);
+        arenaIndex.rebuild(arenas.allIncludingRetired());
+        refreshZones();
+        matchmaker.retainModes(arenas.modes());
     }
 
-    private Arena loadArena(String key, int maxPlayers) {
-        ConfigurationSection section = getConfig().getConfigurationSection(key);
-        if (section == null) {
-            getLogger().warning("No config section for " + key + ". Use /" + key + " commands to set it up.");
+    /**
+     * Rebuilds just the named arena from its config after a setup command changed it, or drops
+     * it if it was removed. A match running in the old arena is played out first.
+     */
+    private void rebuildArena(String name) {
+        ArenaConfig config = arenaConfigs.get(name);
+        Arena arena = config == null ? null : createArena(config);
+
+        Arena old = arenas.replace(name, arena);
+        if (old != null && !old.isBusy()) {
+            // Busy ones stay indexed until their match is over, for glass protection and restores
+            arenaIndex.remove(old);
+        }
+        if (arena != null) {
+            arenaIndex.add(arena);
+        }
+        matchmaker.retainModes(arenas.modes());
+        refreshZones();
+    }
+
+    private Arena createArena(ArenaConfig config) {
+        String name = config.name;
+        ArenaMode mode;
+        try {
+            mode = new ArenaMode(config.teamSize, config.teams);
+        } catch (IllegalArgumentException e) {
+            getLogger().warning("Arena " + name + ": " + e.getMessage() + ". Skipping it.");
             return null;
         }
+        int maxPlayers = mode.players();
 
-        double radius = section.getDouble("radius", 0);
-        Location center = loadLocation(key + ".center");
+        double radius = config.radius;
+        Location center = toLocation(name, "center", config.center);
         List<Location> spawnPoints = new ArrayList<>();
 
         for (int i = 1; i <= maxPlayers; i++) {
-            Location loc = loadLocation(key + ".spawn" + i);
+            Location loc = toLocation(name, "spawn" + i, config.spawns.get(i));
             spawnPoints.add(loc);
         }
 
-        Location box1 = loadLocation(key + ".box1");
-        Location box2 = loadLocation(key + ".box2");
+        Location box1 = toLocation(name, "box1", config.box1);
+        Location box2 = toLocation(name, "box2", config.box2);
 
         boolean usingBox = box1 != null && box2 != null
                 && box1.getWorld() != null && box1.getWorld().equals(box2.getWorld());
@@ -103,93 +291,142 @@ public final class DuelArenasPlugin extends JavaPlugin implements Listener, Comm
                 double midY = (box1.getY() + box2.getY()) / 2.0;
                 double midZ = (box1.getZ() + box2.getZ()) / 2.0;
                 center = new Location(box1.getWorld(), midX, midY, midZ);
-                getLogger().info("Center for " + key + " auto-set to middle of custom box.");
+                getLogger().info("Center for " + name + " auto-set to middle of custom box.");
             }
             // No need for radius or spawns when custom box exists
         } else {
             // Fallback: need center, radius, and spawn points configured
             if (center == null || radius <= 0) {
-                getLogger().warning("Arena " + key + " is missing center or radius. Configure it using commands.");
+                getLogger().warning("Arena " + name + " is missing center or radius. Configure it using commands.");
                 return null;
             }
             for (int i = 0; i < maxPlayers; i++) {
                 if (spawnPoints.get(i) == null) {
-                    getLogger().warning("Arena " + key + " is missing spawn" + (i + 1) + ". Configure it using commands.");
+                    getLogger().warning("Arena " + name + " is missing spawn" + (i + 1) + ". Configure it using commands.");
                     return null;
                 }
             }
         }
 
         if (!usingBox && (box1 != null || box2 != null)) {
-            getLogger().warning("Arena " + key + " has invalid custom box (world mismatch or missing). Ignoring box.");
+            getLogger().warning("Arena " + name + " has invalid custom box (world mismatch or missing). Ignoring box.");
             box1 = null;
             box2 = null;
         }
 
-        getLogger().info("Loaded arena " + key + " (usingBox=" + usingBox + ") with maxPlayers=" + maxPlayers + ".");
-        return new Arena(this, key, center, radius, spawnPoints, maxPlayers, box1, box2);
+        getLogger().info("Loaded arena " + name + " (usingBox=" + usingBox + ") for " + mode + ".");
+        return new Arena(this, name, mode, center, radius, spawnPoints, box1, box2);
     }
 
-    private void saveLocation(String path, Location loc) {
-        getConfig().set(path + ".world", loc.getWorld().getName());
-        getConfig().set(path + ".x", loc.getX());
-        getConfig().set(path + ".y", loc.getY());
-        getConfig().set(path + ".z", loc.getZ());
-        getConfig().set(path + ".yaw", loc.getYaw());
-        getConfig().set(path + ".pitch", loc.getPitch());
-        saveConfig();
-    }
-
-    private Location loadLocation(String path) {
-        if (!getConfig().contains(path + ".world")) {
+    private Location toLocation(String arena, String key, ArenaConfig.Point point) {
+        if (point == null) {
             return null;
         }
-
-        String worldName = getConfig().getString(path + ".world");
-        if (worldName == null || worldName.isEmpty()) {
-            getLogger().warning("Missing world name for " + path + ".world");
-            return null;
-        }
-
-        World world = Bukkit.getWorld(worldName);
-        if (world == null) {
-            getLogger().warning("World '" + worldName + "' for " + path + " is not loaded.");
-            return null;
+        Location loc = point.toLocation();
+        if (loc == null) {
+            getLogger().warning("World '" + point.world() + "' for arenas." + arena + "." + key + " is not loaded.");
         }
-
-        double x = getConfig().getDouble(path + ".x");
-        double y = getConfig().getDouble(path + ".y");
-        double z = getConfig().getDouble(path + ".z");
-        float yaw = (float) getConfig().getDouble(path + ".yaw", 0.0);
-        float pitch = (float) getConfig().getDouble(path + ".pitch", 0.0);
-
-        return new Location(world, x, y, z, yaw, pitch);
+        return loc;
     }
 
     // ==============================
     // Movement detection
     // ==============================
 
-    @EventHandler
+    @EventHandler(ignoreCancelled = true)
     public void onPlayerMove(PlayerMoveEvent event) {
+        long start = perf.start();
+        Location from = event.getFrom();
+        Location to = event.getTo();
+
+        // Queues only care about block positions, so looking around or moving inside a block is free
+        if (to == null || (from.getBlockX() == to.getBlockX()
+                && from.getBlockY() == to.getBlockY()
+                && from.getBlockZ() == to.getBlockZ()
+                && from.getWorld() == to.getWorld())) {
+            moveProbe.fastExit(start);
+            return;
+        }
+        checkArenaMovement(event.getPlayer(), from, to);
+        moveProbe.stop(start);
+    }
+
+    // Teleports and respawns don't fire PlayerMoveEvent
+    @EventHandler(ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
         if (event.getTo() == null) return;
+        checkArenaMovement(event.getPlayer(), event.getFrom(), event.getTo());
+    }
 
-        Player player = event.getPlayer();
+    @EventHandler
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        checkArenaMovement(event.getPlayer(), event.getPlayer().getLocation(), event.getRespawnLocation());
+    }
 
-        if (arena1v1 != null) {
-            checkArenaMovement(player, arena1v1);
+    /**
+     * Updates the player's arena zone flag and the queues of the arenas near either end of a
+     * move. A player can only be queued in an arena they were inside of, so arenas near neither
+     * {@code from} nor {@code to} can't be affected and are never looked at, and neither is the
+     * player's zone flag, which is already false when {@code from} is near no arena.
+     */
+    private void checkArenaMovement(Player player, Location from, Location to) {
+        Arena[] near = arenaIndex.near(to);
+        Arena[] before = arenaIndex.near(from);
+        if (near.length == 0 && before.length == 0) {
+            return;
+        }
+        CombatState combat = combatStates.get(player.getUniqueId());
+
+        // Players in a match don't queue, but still need their zone for after it
+        boolean queueing = combat == null || !combat.inMatch();
+        boolean inZone = false;
+        for (Arena arena : near) {
+            boolean inside = arena.isInside(to);
+            inZone |= inside;
+            if (!queueing || arenas.get(arena.name()) != arena) continue; // replaced, still finishing a match
+            if (inside) {
+                matchmaker.enterArea(player, arena);
+            } else {
+                matchmaker.leaveArea(player, arena);
+            }
+        }
+        if (combat != null) combat.inArenaZone = inZone;
+        if (!queueing) return;
+
+        // Arenas not near the destination at all: the player certainly left them
+        for (Arena arena : before) {
+            if (!contains(near, arena)) {
+                matchmaker.leaveArea(player, arena);
+            }
         }
-        if (arena2v2 != null) {
-            checkArenaMovement(player, arena2v2);
+    }
+
+    private static boolean contains(Arena[] arenas, Arena arena) {
+        for (Arena a : arenas) {
+            if (a == arena) return true;
         }
+        return false;
     }
 
-    private void checkArenaMovement(Player player, Arena arena) {
-        if (arena.isInside(player.getLocation())) {
-            arena.onEnterRadius(player);
-        } else {
-            arena.onLeaveRadius(player);
+    private boolean isInsideAnyArena(Location loc) {
+        for (Arena arena : arenaIndex.near(loc)) {
+            if (arena.isInside(loc)) return true;
         }
+        return false;
+    }
+
+    /** Recomputes the zone flag of every online player, after arenas changed around them. */
+    private void refreshZones() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            CombatState combat = combatStates.get(player.getUniqueId());
+            if (combat != null) combat.inArenaZone = isInsideAnyArena(player.getLocation());
+        }
+    }
+
+    /** @return the arena the player is alive in a match in, or null */
+    private Arena matchOf(UUID player) {
+        CombatState combat = combatStates.get(player);
+        return combat == null ? null : combat.arena;
     }
 
     // ==============================
@@ -198,7 +435,17 @@ public final class DuelArenasPlugin extends JavaPlugin implements Listener, Comm
 
     @EventHandler
     public void onDamage(EntityDamageByEntityEvent event) {
-        if (!(event.getEntity() instanceof Player victim)) return;
+        long start = perf.start();
+        if (arbitrateDamage(event)) {
+            damageProbe.stop(start);
+        } else {
+            damageProbe.fastExit(start);
+        }
+    }
+
+    /** @return false if the hit is not between players and was left alone */
+    private boolean arbitrateDamage(EntityDamageByEntityEvent event) {
+        if (!(event.getEntity() instanceof Player victim)) return false;
 
         Player damagerPlayer = null;
         Entity damager = event.getDamager();
@@ -209,33 +456,33 @@ public final class DuelArenasPlugin extends JavaPlugin implements Listener, Comm
             damagerPlayer = (Player) proj.getShooter();
         }
 
-        if (damagerPlayer == null) return;
-
-        UUID vId = victim.getUniqueId();
-        UUID dId = damagerPlayer.getUniqueId();
+        if (damagerPlayer == null) return false;
 
-        Arena aVictim = activeMatchByPlayer.get(vId);
-        Arena aDamager = activeMatchByPlayer.get(dId);
+        // Players without a state (e.g. NPCs) count as outside every arena and match
+        CombatState v = combatStates.get(victim.getUniqueId());
+        CombatState d = combatStates.get(damagerPlayer.getUniqueId());
+        int vMatch = v == null ? CombatState.NO_MATCH : v.matchId;
+        int dMatch = d == null ? CombatState.NO_MATCH : d.matchId;
 
-        // If neither is in a match but they are inside any arena area, block damage
-        if (aVictim == null && aDamager == null) {
-            if ((arena1v1 != null && arena1v1.isInside(victim.getLocation())) ||
-                    (arena2v2 != null && arena2v2.isInside(victim.getLocation()))) {
+        // If neither is in a match but the victim is inside any arena area, block damage
+        if (vMatch == CombatState.NO_MATCH && dMatch == CombatState.NO_MATCH) {
+            if (v != null && v.inArenaZone) {
                 event.setCancelled(true);
             }
-            return;
+            return true;
         }
 
-        // If one is in a match and the other isn't, or they are in different arenas -> cancel
-        if (aVictim == null || aDamager == null || aVictim != aDamager) {
+        // If one is in a match and the other isn't, or they are in different matches -> cancel
+        if (vMatch != dMatch) {
             event.setCancelled(true);
-            return;
+            return true;
         }
 
-        // Same arena match, but check if PVP is enabled yet
-        if (!aVictim.isPvpEnabled()) {
+        // Same match: only once the fight is on, and never between teammates (own arrows are fine)
+        if (!v.pvpLive || (v.team == d.team && victim != damagerPlayer)) {
             event.setCancelled(true);
         }
+        return true;
     }
 
     // ==============================
@@ -244,15 +491,152 @@ public final class DuelArenasPlugin extends JavaPlugin implements Listener, Comm
 
     @EventHandler
     public void onBlockBreak(BlockBreakEvent event) {
+        long start = perf.start();
         Block block = event.getBlock();
-        if (block.getType() != Material.BLUE_STAINED_GLASS) return;
+        if (block.getType() != Material.BLUE_STAINED_GLASS) {
+            blockBreakProbe.fastExit(start);
+            return;
+        }
 
-        Location loc = block.getLocation();
-        boolean cancel = (arena1v1 != null && arena1v1.isGlassBlock(loc))
-                || (arena2v2 != null && arena2v2.isGlassBlock(loc));
+        for (Arena arena : arenaIndex.near(block.getX(), block.getZ())) {
+            if (arena.isGlassBlock(block)) {
+                event.setCancelled(true);
+                break;
+            }
+        }
+        blockBreakProbe.stop(start);
+    }
 
-        if (cancel) {
-            event.setCancelled(true);
+    // Glass a crash left in a world that wasn't loaded on enable, e.g. one a world manager loads later
+    @EventHandler
+    public void onWorldLoad(WorldLoadEvent event) {
+        int restored = glassJournal.replay(event.getWorld());
+        if (restored > 0) {
+            getLogger().warning("Removed " + restored + " arena glass block(s) left behind in " + event.getWorld().getName()
+                    + " by an unclean shutdown.");
+        }
+    }
+
+    // ==============================
+    // Block change tracking
+    // ==============================
+    // Everything that can change a block inside a busy arena marks it for the restore after the
+    // match. Only positions are recorded; what to put back comes from the arena's snapshot.
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBroken(BlockBreakEvent event) {
+        blockChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        if (event instanceof BlockMultiPlaceEvent multi) {
+            for (BlockState state : multi.getReplacedBlockStates()) {
+                blockChanged(state.getWorld(), state.getX(), state.getY(), state.getZ());
+            }
+            return;
+        }
+        blockChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketEmpty(PlayerBucketEmptyEvent event) {
+        blockChanged(event.getBlock());
+    }
+
+    // Picking up a water or lava source
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketFill(PlayerBucketFillEvent event) {
+        blockChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        blockChanged(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        blockChanged(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent event) {
+        blockChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFlow(BlockFromToEvent event) {
+        blockChanged(event.getToBlock());
+    }
+
+    // Fire from flint and steel, lava or lightning
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockIgnite(BlockIgniteEvent event) {
+        blockChanged(event.getBlock());
+    }
+
+    // Wool, planks and the like burning away
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        blockChanged(event.getBlock());
+    }
+
+    // Fire, grass and vines spreading; has its own handler list, so BlockFormEvent doesn't see it
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockSpread(BlockSpreadEvent event) {
+        blockChanged(event.getBlock());
+    }
+
+    // Snow and ice forming, concrete powder setting, cobblestone and obsidian from lava
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent event) {
+        blockChanged(event.getBlock());
+    }
+
+    // Sand and gravel starting to fall and landing somewhere new, endermen, trampled farmland
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        blockChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        BlockFace direction = event.getDirection();
+        pistonMoved(event.getBlock(), event.getBlock().getRelative(direction), event.getBlocks(), direction);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        // The direction is the one the blocks move in, towards the piston
+        BlockFace direction = event.getDirection();
+        pistonMoved(event.getBlock(), event.getBlock().getRelative(direction.getOppositeFace()), event.getBlocks(),
+                direction);
+    }
+
+    /** The piston and its head change state, and every moved block leaves one spot for the next. */
+    private void pistonMoved(Block piston, Block head, List<Block> moved, BlockFace direction) {
+        blockChanged(piston);
+        blockChanged(head);
+        for (Block block : moved) {
+            blockChanged(block);
+            blockChanged(block.getRelative(direction));
+        }
+    }
+
+    private void blockChanged(List<Block> blocks) {
+        for (Block block : blocks) {
+            blockChanged(block);
+        }
+    }
+
+    private void blockChanged(Block block) {
+        blockChanged(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+
+    private void blockChanged(World world, int x, int y, int z) {
+        for (Arena arena : arenaIndex.near(x, z)) {
+            arena.trackChange(world, x, y, z);
         }
     }
 
@@ -263,22 +647,36 @@ public final class DuelArenasPlugin extends JavaPlugin implements Listener, Comm
     @EventHandler
     public void onPlayerDeath(PlayerDeathEvent event) {
         Player player = event.getEntity();
-        Arena arena = activeMatchByPlayer.get(player.getUniqueId());
+        Arena arena = matchOf(player.getUniqueId());
         if (arena != null) {
+            Player killer = player.getKiller();
+            if (killer != null && matchOf(killer.getUniqueId()) == arena) {
+                arena.onKill(killer);
+            }
             arena.onPlayerEliminated(player);
         }
     }
 
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        // Loads their stats in the background, so they are cached by the time they queue
+        stats.stats(event.getPlayer().getUniqueId());
+
+        CombatState combat = new CombatState();
+        combat.inArenaZone = isInsideAnyArena(event.getPlayer().getLocation());
+        combatStates.put(event.getPlayer().getUniqueId(), combat);
+    }
+
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
-        Arena arena = activeMatchByPlayer.get(player.getUniqueId());
+        Arena arena = matchOf(player.getUniqueId());
         if (arena != null) {
             arena.onPlayerEliminated(player);
         } else {
-            if (arena1v1 != null) arena1v1.onLeaveRadius(player);
-            if (arena2v2 != null) arena2v2.onLeaveRadius(player);
+            matchmaker.leave(player.getUniqueId());
         }
+        combatStates.remove(player.getUniqueId());
     }
 
     // ==============================
@@ -291,23 +689,117 @@ public final class DuelArenasPlugin extends JavaPlugin implements Listener, Comm
             sender.sendMessage("Only players can use this command.");
             return true;
         }
+        if (cmd.getName().equalsIgnoreCase("queue")) {
+            return queueCommand((Player) sender, label, args);
+        }
+        if (cmd.getName().equalsIgnoreCase("duelstats")) {
+            return statsCommand((Player) sender, args);
+        }
         if (!sender.hasPermission("duelarenas.admin")) {
             sender.sendMessage("You don't have permission to do that.");
             return true;
         }
 
         Player player = (Player) sender;
-        String arenaKey = label.equalsIgnoreCase("arena1") ? "arena1" : "arena2";
-        int maxPlayers = label.equalsIgnoreCase("arena1") ? 2 : 4;
+
+        // /arena1 and /arena2 are shortcuts for the arenas the old fixed 1v1 and 2v2 setup used
+        if (label.equalsIgnoreCase("arena1") || label.equalsIgnoreCase("arena2")) {
+            String arenaName = label.toLowerCase(Locale.ROOT);
+            int teamSize = arenaName.equals("arena1") ? 1 : 2;
+            if (arenaConfigs.get(arenaName) == null) {
+                arenaConfigs.create(arenaName, new ArenaMode(teamSize, 2));
+            }
+            return configureArena(player, "/" + label, arenaName, args);
+        }
+
+        if (args.length < 1) {
+            sendPoolUsage(player);
+            return true;
+        }
+
+        String sub = args[0].toLowerCase(Locale.ROOT);
+        switch (sub) {
+            case "list":
+                if (arenas.all().isEmpty()) {
+                    player.sendMessage("§7No arenas loaded.");
+                }
+                for (Arena arena : arenas.all()) {
+                    player.sendMessage("§e" + arena.name() + " §7- " + arena.mode()
+                            + (arena.isBusy() ? " §c(in use)" : " §a(free)")
+                            + " §7" + matchmaker.queued(arena.mode()) + " queued");
+                }
+                return true;
+
+            case "create":
+                if (args.length < 3) {
+                    player.sendMessage("Usage: /" + label + " create <name> <team-size> [teams]");
+                    return true;
+                }
+                String newName = args[1].toLowerCase(Locale.ROOT);
+                if (!VALID_NAME.matcher(newName).matches()) {
+                    player.sendMessage("§cArena names may only use a-z, 0-9, _ and - (max 32 characters).");
+                    return true;
+                }
+                if (arenaConfigs.get(newName) != null) {
+                    player.sendMessage("§cArena " + newName + " already exists.");
+                    return true;
+                }
+                ArenaMode mode;
+                try {
+                    mode = new ArenaMode(Integer.parseInt(args[2]), args.length > 3 ? Integer.parseInt(args[3]) : 2);
+                } catch (NumberFormatException e) {
+                    player.sendMessage("§cTeam size and team count must be numbers.");
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    player.sendMessage("§c" + e.getMessage() + ".");
+                    return true;
+                }
+                arenaConfigs.create(newName, mode);
+                player.sendMessage("§aCreated " + mode + " arena " + newName + ". Set it up with §e/" + label + " "
+                        + newName + " §a(box corners or center, radius and spawns).");
+                return true;
+
+            case "remove":
+                if (args.length < 2) {
+                    player.sendMessage("Usage: /" + label + " remove <name>");
+                    return true;
+                }
+                String removeName = args[1].toLowerCase(Locale.ROOT);
+                if (!arenaConfigs.remove(removeName)) {
+                    player.sendMessage("§cUnknown arena " + removeName + ".");
+                    return true;
+                }
+                rebuildArena(removeName);
+                player.sendMessage("§aArena " + removeName + " removed.");
+                return true;
+
+            default:
+                String arenaName = sub;
+                if (arenaConfigs.get(arenaName) == null) {
+                    player.sendMessage("§cUnknown arena " + arenaName + ". Create it with /" + label + " create <name> <team-size>.");
+                    return true;
+                }
+                return configureArena(player, "/" + label + " " + arenaName, arenaName,
+                        Arrays.copyOfRange(args, 1, args.length));
+        }
+    }
+
+    /**
+     * Setup subcommands of one arena. {@code prefix} is what the player typed before them, for
+     * usage messages.
+     */
+    private boolean configureArena(Player player, String prefix, String arenaKey, String[] args) {
+        ArenaConfig config = arenaConfigs.get(arenaKey);
+        int maxPlayers = config.players();
 
         if (args.length < 1) {
-            sendUsage(player, label, maxPlayers);
+            sendUsage(player, prefix, maxPlayers);
             return true;
         }
 
         String sub = args[0].toLowerCase(Locale.ROOT);
 
-        // /arenaX 1 and /arenaX 2 = custom box corners
+        // <prefix> 1 and <prefix> 2 = custom box corners
         if (sub.equals("1") || sub.equals("2")) {
             int index = Integer.parseInt(sub);
             Location loc = player.getLocation();
@@ -318,16 +810,16 @@ public final class DuelArenasPlugin extends JavaPlugin implements Listener, Comm
                 pendingBoxCorner2.put(arenaKey, loc);
                 player.sendMessage("§aSet custom box corner 2 for " + arenaKey + " at your current location.");
             }
-            player.sendMessage("§7Run §e/" + label + " confirm §7to save the custom box.");
+            player.sendMessage("§7Run §e" + prefix + " confirm §7to save the custom box.");
             return true;
         }
 
-        // /arenaX confirm = save custom box to config and auto-use as arena area
+        // <prefix> confirm = save custom box to config and auto-use as arena area
         if (sub.equalsIgnoreCase("confirm")) {
             Location c1 = pendingBoxCorner1.get(arenaKey);
             Location c2 = pendingBoxCorner2.get(arenaKey);
             if (c1 == null || c2 == null) {
-                player.sendMessage("§cYou must set both corners first with /" + label + " 1 and /" + label + " 2.");
+                player.sendMessage("§cYou must set both corners first with " + prefix + " 1 and " + prefix + " 2.");
                 return true;
             }
             if (!Objects.equals(c1.getWorld(), c2.getWorld())) {
@@ -335,87 +827,175 @@ public final class DuelArenasPlugin extends JavaPlugin implements Listener, Comm
                 return true;
             }
 
-            saveLocation(arenaKey + ".box1", c1);
-            saveLocation(arenaKey + ".box2", c2);
+            config.box1 = ArenaConfig.Point.of(c1);
+            config.box2 = ArenaConfig.Point.of(c2);
 
             // Also store center as middle of box (used as teleport base etc.)
             double midX = (c1.getX() + c2.getX()) / 2.0;
             double midY = (c1.getY() + c2.getY()) / 2.0;
             double midZ = (c1.getZ() + c2.getZ()) / 2.0;
             Location mid = new Location(c1.getWorld(), midX, midY, midZ, player.getLocation().getYaw(), player.getLocation().getPitch());
-            saveLocation(arenaKey + ".center", mid);
+            config.center = ArenaConfig.Point.of(mid);
 
             // Radius no longer needed when box exists; clear it to avoid confusion
-            getConfig().set(arenaKey + ".radius", null);
-            saveConfig();
+            config.radius = 0;
 
             pendingBoxCorner1.remove(arenaKey);
             pendingBoxCorner2.remove(arenaKey);
 
-            reloadConfig();
-            loadArenas();
+            arenaConfigs.changed();
+            rebuildArena(arenaKey);
 
             player.sendMessage("§aCustom glass box for " + arenaKey + " saved and set as arena area.");
-            player.sendMessage("§7You no longer need /" + label + " setradius or /" + label + " setspawn when using this box.");
+            player.sendMessage("§7You no longer need " + prefix + " setradius or " + prefix + " setspawn when using this box.");
             return true;
         }
 
-        switch (sub) {
-            case "setcenter":
-                saveLocation(arenaKey + ".center", player.getLocation());
-                player.sendMessage("Center for " + arenaKey + " set to your current location.");
-                break;
+        // <prefix> stop = end the running match without a result
+        if (sub.equals("stop")) {
+            Arena arena = arenas.get(arenaKey);
+            if (arena == null || (arena.state() != ArenaState.COUNTDOWN && arena.state() != ArenaState.FIGHTING)) {
+                player.sendMessage("§7There is no match running in " + arenaKey + ".");
+                return true;
+            }
+            arena.cancelMatch("§cAn admin stopped the match in " + arenaKey + ".");
+            player.sendMessage("§aStopped the match in " + arenaKey + ".");
+            return true;
+        }
 
-            case "setradius":
-                if (args.length < 2) {
-                    player.sendMessage("Usage: /" + label + " setradius <number>");
-                    return true;
-                }
-                try {
-                    double r = Double.parseDouble(args[1]);
-                    getConfig().set(arenaKey + ".radius", r);
-                    saveConfig();
-                    player.sendMessage("Radius for " + arenaKey + " set to " + r + ".");
-                } catch (NumberFormatException e) {
-                    player.sendMessage("Radius must be a number.");
-                    return true;
-                }
-                break;
+        if (sub.equals("setcenter")) {
+            config.center = ArenaConfig.Point.of(player.getLocation());
+            player.sendMessage("Center for " + arenaKey + " set to your current location.");
+        } else if (sub.equals("setradius")) {
+            if (args.length < 2) {
+                player.sendMessage("Usage: " + prefix + " setradius <number>");
+                return true;
+            }
+            try {
+                double r = Double.parseDouble(args[1]);
+                config.radius = r;
+                player.sendMessage("Radius for " + arenaKey + " set to " + r + ".");
+            } catch (NumberFormatException e) {
+                player.sendMessage("Radius must be a number.");
+                return true;
+            }
+        } else if (sub.startsWith("setspawn")) {
+            int index;
+            try {
+                index = Integer.parseInt(sub.substring("setspawn".length()));
+            } catch (NumberFormatException e) {
+                sendUsage(player, prefix, maxPlayers);
+                return true;
+            }
+            if (index < 1 || index > maxPlayers) {
+                player.sendMessage("This arena only needs " + maxPlayers + " spawn points.");
+                return true;
+            }
+            config.spawns.put(index, ArenaConfig.Point.of(player.getLocation()));
+            player.sendMessage("Spawn " + index + " for " + arenaKey + " set to your current location.");
+        } else {
+            sendUsage(player, prefix, maxPlayers);
+            return true;
+        }
 
-            case "setspawn1":
-            case "setspawn2":
-            case "setspawn3":
-            case "setspawn4":
-                int index = Integer.parseInt(sub.substring(sub.length() - 1)); // last char
-                int maxNeeded = maxPlayers;
-                if (index > maxNeeded) {
-                    player.sendMessage("This arena only needs " + maxNeeded + " spawn points.");
-                    return true;
-                }
-                saveLocation(arenaKey + ".spawn" + index, player.getLocation());
-                player.sendMessage("Spawn " + index + " for " + arenaKey + " set to your current location.");
-                break;
+        arenaConfigs.changed();
+        rebuildArena(arenaKey);
+        return true;
+    }
 
-            default:
-                sendUsage(player, label, maxPlayers);
+    /** {@code /queue <mode>} and {@code /queue leave}, for joining a queue from anywhere. */
+    private boolean queueCommand(Player player, String label, String[] args) {
+        if (args.length < 1) {
+            player.sendMessage("Usage: /" + label + " <mode|leave>, e.g. /" + label + " 1v1");
+            return true;
+        }
+        if (args[0].equalsIgnoreCase("leave")) {
+            ArenaMode left = matchmaker.leave(player.getUniqueId());
+            player.sendMessage(left != null ? "§cYou left the " + left + " duel queue." : "§7You are not in a queue.");
+            return true;
+        }
+        if (matchOf(player.getUniqueId()) != null) {
+            player.sendMessage("§cYou are already in a match.");
+            return true;
+        }
+
+        ArenaMode mode;
+        try {
+            mode = ArenaMode.parse(args[0]);
+        } catch (IllegalArgumentException e) {
+            player.sendMessage("§c" + e.getMessage() + ".");
+            return true;
+        }
+        if (!arenas.modes().contains(mode)) {
+            player.sendMessage("§cThere are no " + mode + " arenas.");
+            return true;
+        }
+        matchmaker.join(player, mode, null);
+        return true;
+    }
+
+    /** {@code /duelstats [player]}, from the stats cache, or {@code /duelstats perf} for admins. */
+    private boolean statsCommand(Player player, String[] args) {
+        if (args.length > 0 && args[0].equalsIgnoreCase("perf") && player.hasPermission("duelarenas.admin")) {
+            return perfCommand(player, args);
+        }
+        Player target = player;
+        if (args.length > 0) {
+            target = Bukkit.getPlayerExact(args[0]);
+            if (target == null) {
+                player.sendMessage("§c" + args[0] + " is not online.");
                 return true;
+            }
         }
 
-        reloadConfig();
-        loadArenas();
+        PlayerStats s = stats.stats(target.getUniqueId());
+        if (!s.isLoaded()) {
+            player.sendMessage("§7Stats of " + target.getName() + " are still loading, try again in a moment.");
+            return true;
+        }
+        player.sendMessage("§eDuel stats of " + target.getName() + ":");
+        player.sendMessage("§7Rating: §f" + s.rating() + " §7Wins: §a" + s.wins() + " §7Losses: §c" + s.losses()
+                + " §7Kills: §f" + s.kills());
         return true;
     }
 
-    private void sendUsage(Player player, String label, int maxPlayers) {
-        player.sendMessage("§e/" + label + " 1 §7- Set custom box corner 1");
-        player.sendMessage("§e/" + label + " 2 §7- Set custom box corner 2");
-        player.sendMessage("§e/" + label + " confirm §7- Save custom glass box and use it as arena area");
-        player.sendMessage("§7(If no custom box is set, you can still use radius + spawns:)");
-        player.sendMessage("§e/" + label + " setcenter §7- Set arena center");
-        player.sendMessage("§e/" + label + " setradius <number> §7- Set arena radius");
-        for (int i = 1; i <= maxPlayers; i++) {
-            player.sendMessage("§e/" + label + " setspawn" + i + " §7- Set spawn point " + i);
+    /** {@code /duelstats perf [on|off|reset]}: hot-path timings of the current window. */
+    private boolean perfCommand(Player player, String[] args) {
+        if (args.length > 1) {
+            switch (args[1].toLowerCase(Locale.ROOT)) {
+                case "on" -> perf.setEnabled(true);
+                case "off" -> perf.setEnabled(false);
+                case "reset" -> perf.reset();
+                default -> {
+                    player.sendMessage("Usage: /duelstats perf [on|off|reset]");
+                    return true;
+                }
+            }
         }
+        player.sendMessage("§ePerf metrics " + (perf.isEnabled() ? "§aon" : "§coff")
+                + "§e, last " + perf.windowSeconds() + "s:");
+        for (String line : perf.report()) {
+            player.sendMessage("§7" + line);
+        }
+        return true;
+    }
+
+    private void sendPoolUsage(Player player) {
+        player.sendMessage("§e/arena list §7- List arenas and whether they are in use");
+        player.sendMessage("§e/arena create <name> <team-size> [teams] §7- Add an arena (2 teams by default)");
+        player.sendMessage("§e/arena remove <name> §7- Remove an arena");
+        player.sendMessage("§e/arena <name> §7- Show the setup commands of an arena");
+    }
+
+    private void sendUsage(Player player, String prefix, int maxPlayers) {
+        player.sendMessage("§e" + prefix + " 1 §7- Set custom box corner 1");
+        player.sendMessage("§e" + prefix + " 2 §7- Set custom box corner 2");
+        player.sendMessage("§e" + prefix + " confirm §7- Save custom glass box and use it as arena area");
+        player.sendMessage("§e" + prefix + " stop §7- End the running match without a result");
+        player.sendMessage("§7(If no custom box is set, you can still use radius + spawns:)");
+        player.sendMessage("§e" + prefix + " setcenter §7- Set arena center");
+        player.sendMessage("§e" + prefix + " setradius <number> §7- Set arena radius");
+        player.sendMessage("§e" + prefix + " setspawn<1-" + maxPlayers + "> §7- Set spawn points");
     }
 
     // ==============================
@@ -426,264 +1006,475 @@ public final class DuelArenasPlugin extends JavaPlugin implements Listener, Comm
 
         private final DuelArenasPlugin plugin;
         private final String id;
+        private final ArenaMode mode;
         private final Location center;
         private final double radius;
-        private final double radiusSquared;
-        private final List<Location> spawnPoints;
         private final int maxPlayers;
 
-        // Optional custom box corners (if set)
-        private final Location box1;
-        private final Location box2;
+        // Custom box if both corners are set, otherwise the sphere around center
+        private final ArenaBounds bounds;
 
-        private final LinkedHashSet<UUID> waiting = new LinkedHashSet<>();
+        // Players still alive in the current match, and the team each was put on
         private final HashSet<UUID> playing = new HashSet<>();
-
-        private final Set<Location> glassBlocks = new HashSet<>();
-
-        private boolean running = false;
-        private boolean pvpEnabled = false;
-
-        public Arena(DuelArenasPlugin plugin, String id, Location center, double radius,
-                     List<Location> spawnPoints, int maxPlayers, Location box1, Location box2) {
+        private final Map<UUID, Integer> teamOf = new HashMap<>();
+        private final Map<UUID, Integer> killsOf = new HashMap<>();
+        private long matchStartedAt;
+        private int matchId = CombatState.NO_MATCH;
+
+        // Glass placed by buildGlassBox, as packed block positions in glassWorldId
+        private final BlockKeySet glassBlocks = new BlockKeySet();
+        // What the glass replaced where that wasn't air, put back on teardown
+        private final Map<Long, BlockData> glassOriginals = new HashMap<>();
+        private final UUID glassWorldId;
+        private final GlassShell glassShell;
+        // Build or teardown of the enclosure in progress, if any
+        private GlassTask glassTask;
+        // Journal id of the glass currently standing, -1 if none
+        private int glassEnclosure = -1;
+
+        private ArenaState state = ArenaState.IDLE;
+        // Ticks left of the countdown (-1 while the glass is still being built) or the cooldown
+        private int stateTicks;
+        // Players of the current match in spawn order, and the ones who won it
+        private final List<UUID> matchPlayers = new ArrayList<>();
+        private final List<UUID> winners = new ArrayList<>();
+
+        // Arena volume as it was before the first match, and what changed since the last restore
+        private ArenaSnapshot snapshot;
+        // Fills the snapshot over several ticks before the first match
+        private SnapshotTask snapshotTask;
+        private final BlockKeySet changedBlocks = new BlockKeySet();
+        private RestoreTask restoreTask;
+
+        public Arena(DuelArenasPlugin plugin, String id, ArenaMode mode, Location center, double radius,
+                     List<Location> spawnPoints, Location box1, Location box2) {
             this.plugin = plugin;
             this.id = id;
+            this.mode = mode;
             this.center = center;
             this.radius = radius;
-            this.radiusSquared = radius * radius;
-            this.spawnPoints = spawnPoints;
-            this.maxPlayers = maxPlayers;
-            this.box1 = box1;
-            this.box2 = box2;
-        }
+            this.maxPlayers = mode.players();
 
-        private boolean usingBox() {
-            return box1 != null && box2 != null
+            boolean usingBox = box1 != null && box2 != null
                     && box1.getWorld() != null
                     && box1.getWorld().equals(box2.getWorld());
+            if (usingBox) {
+                this.bounds = ArenaBounds.box(box1, box2, maxPlayers);
+            } else if (center != null && center.getWorld() != null) {
+                this.bounds = ArenaBounds.sphere(center, radius, spawnPoints);
+            } else {
+                this.bounds = null;
+            }
+
+            this.glassShell = createGlassShell();
+            World glassWorld = bounds != null && bounds.box ? bounds.world : center != null ? center.getWorld() : null;
+            this.glassWorldId = glassWorld == null ? null : glassWorld.getUID();
         }
 
-        public boolean isInside(Location loc) {
-            if (loc == null || loc.getWorld() == null) return false;
+        public String name() {
+            return id;
+        }
 
-            if (usingBox() && loc.getWorld().equals(box1.getWorld())) {
-                double x = loc.getX();
-                double y = loc.getY();
-                double z = loc.getZ();
+        public ArenaMode mode() {
+            return mode;
+        }
 
-                double minX = Math.min(box1.getX(), box2.getX());
-                double maxX = Math.max(box1.getX(), box2.getX());
-                double minY = Math.min(box1.getY(), box2.getY());
-                double maxY = Math.max(box1.getY(), box2.getY());
-                double minZ = Math.min(box1.getZ(), box2.getZ());
-                double maxZ = Math.max(box1.getZ(), box2.getZ());
+        public boolean isInside(Location loc) {
+            return loc != null && bounds != null && bounds.contains(loc);
+        }
 
-                return x >= minX && x <= maxX
-                        && y >= minY && y <= maxY
-                        && z >= minZ && z <= maxZ;
+        /**
+         * Chunk columns the arena area and its glass enclosure overlap, as
+         * {minChunkX, minChunkZ, maxChunkX, maxChunkZ}, or null if the arena has no usable area.
+         */
+        int[] chunkExtent() {
+            if (bounds == null) return null;
+            int[] extent = bounds.chunkExtent();
+            if (glassShell != null) {
+                extent[0] = Math.min(extent[0], glassShell.minX >> 4);
+                extent[1] = Math.min(extent[1], glassShell.minZ >> 4);
+                extent[2] = Math.max(extent[2], glassShell.maxX >> 4);
+                extent[3] = Math.max(extent[3], glassShell.maxZ >> 4);
             }
+            return extent;
+        }
 
-            if (center == null || center.getWorld() == null || !center.getWorld().equals(loc.getWorld())) {
-                return false;
-            }
-            return loc.distanceSquared(center) <= radiusSquared;
+        public ArenaState state() {
+            return state;
         }
 
         public boolean isPvpEnabled() {
-            return pvpEnabled;
+            return state == ArenaState.FIGHTING;
         }
 
-        public boolean isGlassBlock(Location loc) {
-            for (Location stored : glassBlocks) {
-                if (stored.getWorld() == loc.getWorld()
-                        && stored.getBlockX() == loc.getBlockX()
-                        && stored.getBlockY() == loc.getBlockY()
-                        && stored.getBlockZ() == loc.getBlockZ()) {
-                    return true;
-                }
-            }
-            return false;
+        /** Whether a match or the cooldown after one is in progress. */
+        public boolean isBusy() {
+            return state != ArenaState.IDLE;
         }
 
-        public void onEnterRadius(Player player) {
-            UUID id = player.getUniqueId();
-
-            if (playing.contains(id)) return;
-            if (waiting.contains(id)) return;
-
-            waiting.add(id);
-            player.sendMessage("§aYou joined the " + this.id + " duel queue! §7(" + waiting.size() + "/" + maxPlayers + ")");
-
-            tryStartMatch();
+        public boolean isGlassBlock(Block block) {
+            return !glassBlocks.isEmpty()
+                    && block.getWorld().getUID().equals(glassWorldId)
+                    && glassBlocks.contains(block.getX(), block.getY(), block.getZ());
         }
 
-        public void onLeaveRadius(Player player) {
-            UUID id = player.getUniqueId();
-            if (waiting.remove(id)) {
-                player.sendMessage("§cYou left the " + this.id + " duel queue.");
+        /**
+         * Starts a match with the players the pool picked for this arena. Players are put on
+         * teams in turn, so the spawn order alternates between teams.
+         */
+        void startMatch(List<UUID> players) {
+            if (state != ArenaState.IDLE) return;
+            if (!setState(ArenaState.COUNTDOWN)) {
+                // Cancelled by another plugin: the arena stays free and the players queue again
+                requeue(players);
+                if (arenas.release(this)) arenaIndex.remove(this);
+                return;
             }
-        }
 
-        private void tryStartMatch() {
-            if (running) return;
-            if (waiting.size() < maxPlayers) return;
+            stateTicks = -1;
+            matchPlayers.clear();
+            matchPlayers.addAll(players);
+            winners.clear();
+            playing.clear();
+            teamOf.clear();
+            killsOf.clear();
+            matchStartedAt = System.currentTimeMillis();
+            matchId = nextMatchId++;
+
+            for (int i = 0; i < matchPlayers.size(); i++) {
+                UUID uuid = matchPlayers.get(i);
+                int team = i % mode.teams();
+                playing.add(uuid);
+                teamOf.put(uuid, team);
 
-            // Grab first maxPlayers from waiting
-            List<UUID> matchPlayers = new ArrayList<>();
-            Iterator<UUID> it = waiting.iterator();
-            while (it.hasNext() && matchPlayers.size() < maxPlayers) {
-                UUID uuid = it.next();
-                matchPlayers.add(uuid);
-                it.remove();
+                Player p = Bukkit.getPlayer(uuid);
+                CombatState combat = combatStates.get(uuid);
+                if (p != null && p.isOnline() && combat != null) {
+                    p.sendMessage("§eBuilding the " + id + " arena...");
+                    combat.joinMatch(this, matchId, team);
+                }
             }
 
-            running = true;
-            pvpEnabled = false;
-            playing.clear();
-            playing.addAll(matchPlayers);
+            // Players are only teleported in, and the countdown only starts, once the enclosure
+            // stands, and the enclosure only once the arena's snapshot is complete
+            if (snapshot == null && captureSnapshot()) return;
+            buildGlassBox(this::beginCountdown);
+        }
 
-            buildGlassBox();
+        private void beginCountdown() {
+            if (state != ArenaState.COUNTDOWN) return;
 
             int i = 0;
             for (UUID uuid : matchPlayers) {
                 Player p = Bukkit.getPlayer(uuid);
-                if (p != null && p.isOnline()) {
+                if (playing.contains(uuid) && p != null && p.isOnline()) {
                     Location spawn = getSpawnLocation(i);
                     if (spawn != null) {
                         p.teleport(spawn);
                     } else {
                         p.sendMessage("§cSpawn location " + (i + 1) + " for " + id + " is not configured correctly.");
                     }
-                    p.sendMessage("§eMatch starting in " + id + "! §7(2 seconds until fight)");
-                    activeMatchByPlayer.put(uuid, this);
+                    p.sendMessage("§e" + mode + " match starting in " + id + "! §7(2 seconds until fight)");
+                    if (mode.teamSize() > 1) {
+                        p.sendMessage("§7Your team: §f" + teammateNames(uuid));
+                    }
                 }
                 i++;
             }
+            stateTicks = COUNTDOWN_TICKS;
+        }
 
-            new BukkitRunnable() {
-                @Override
-                public void run() {
-                    pvpEnabled = true;
-                    for (UUID uuid : playing) {
-                        Player p = Bukkit.getPlayer(uuid);
-                        if (p != null && p.isOnline()) {
-                            p.sendMessage("§cFIGHT!");
-                        }
+        private String teammateNames(UUID player) {
+            int team = teamOf.getOrDefault(player, -1);
+            StringJoiner names = new StringJoiner(", ");
+            for (UUID uuid : matchPlayers) {
+                if (teamOf.getOrDefault(uuid, -2) != team) continue;
+                Player p = Bukkit.getPlayer(uuid);
+                names.add(p != null ? p.getName() : uuid.toString());
+            }
+            return names.toString();
+        }
+
+        private void beginFight() {
+            if (!setState(ArenaState.FIGHTING)) {
+                cancelMatch("§cThe match in " + id + " was cancelled.");
+                return;
+            }
+            for (UUID uuid : playing) {
+                CombatState combat = combatStates.get(uuid);
+                if (combat != null && combat.arena == this) {
+                    combat.pvpLive = true;
+                }
+                Player p = Bukkit.getPlayer(uuid);
+                if (p != null && p.isOnline()) {
+                    p.sendMessage("§cFIGHT!");
+                }
+            }
+        }
+
+        /**
+         * Moves the arena to the next state when its timers run out, and steps glass and
+         * restore work. Called every tick while the arena is busy.
+         *
+         * @return whether the arena still needs ticking
+         */
+        boolean tick() {
+            if (snapshotTask != null) snapshotTask.tick();
+            if (glassTask != null) stepGlass();
+            if (restoreTask != null) restoreTask.tick();
+
+            switch (state) {
+                case COUNTDOWN -> {
+                    if (stateTicks > 0 && --stateTicks == 0) {
+                        beginFight();
+                    }
+                }
+                case COOLDOWN -> {
+                    if (stateTicks > 0 && --stateTicks == 0) {
+                        sendWinnersHome();
+                    }
+                    // Freed once the cooldown is over and the arena is restored. Blocks changed
+                    // after the restore took its set (during the cooldown) get a restore of their own.
+                    if (stateTicks == 0 && restoreTask == null) {
+                        restoreChanges();
                     }
+                    if (stateTicks == 0 && restoreTask == null) {
+                        setState(ArenaState.IDLE);
+                        // A setup command replaced this arena during the match: drop it now
+                        if (arenas.release(this)) arenaIndex.remove(this);
+                    }
+                }
+                default -> {
                 }
-            }.runTaskLater(plugin, 40L); // 2 seconds
+            }
+            return state != ArenaState.IDLE || snapshotTask != null || glassTask != null || restoreTask != null;
         }
 
-        private Location getSpawnLocation(int index) {
-            // If custom box exists, auto-generate spawn points around its center
-            if (usingBox()) {
-                World world = box1.getWorld();
-                double minX = Math.min(box1.getX(), box2.getX());
-                double maxX = Math.max(box1.getX(), box2.getX());
-                double minY = Math.min(box1.getY(), box2.getY());
-                double maxY = Math.max(box1.getY(), box2.getY());
-                double minZ = Math.min(box1.getZ(), box2.getZ());
-                double maxZ = Math.max(box1.getZ(), box2.getZ());
-
-                double cx = (minX + maxX) / 2.0;
-                double cz = (minZ + maxZ) / 2.0;
-                double y = minY + 1.0; // just above floor
-                double offset = 1.5;
-
-                if (maxPlayers == 2) {
-                    double[][] offs = {{-offset, 0}, {offset, 0}};
-                    if (index >= offs.length) index = offs.length - 1;
-                    return new Location(world, cx + offs[index][0], y, cz + offs[index][1], 0f, 0f);
-                } else {
-                    double[][] offs = {
-                            {-offset, 0},
-                            {offset, 0},
-                            {0, -offset},
-                            {0, offset}
-                    };
-                    if (index >= offs.length) index = offs.length - 1;
-                    return new Location(world, cx + offs[index][0], y, cz + offs[index][1], 0f, 0f);
+        /**
+         * Changes state, unless a listener cancelled the change.
+         *
+         * @return whether the state changed
+         */
+        private boolean setState(ArenaState to) {
+            ArenaStateChangeEvent event = new ArenaStateChangeEvent(this, state, to);
+            getServer().getPluginManager().callEvent(event);
+            if (event.isCancelled()) return false;
+
+            state = to;
+            activeArenas.add(this);
+            return true;
+        }
+
+        private void requeue(Collection<UUID> players) {
+            for (UUID uuid : players) {
+                Player p = Bukkit.getPlayer(uuid);
+                if (p != null && p.isOnline()) {
+                    matchmaker.join(p, mode, null);
                 }
             }
+        }
+
+        private Location getSpawnLocation(int index) {
+            // Generated around the box center for custom boxes, else the configured spawns or the center
+            return bounds != null ? bounds.spawn(index) : center;
+        }
+
+        /**
+         * Walls and roof of the custom box (no floor), or a 5 high square enclosure above the
+         * center for radius arenas. Null if the arena has no center.
+         */
+        private GlassShell createGlassShell() {
+            if (center == null || center.getWorld() == null) return null;
+
+            if (bounds != null && bounds.box) {
+                return new GlassShell(bounds.blockMinX, bounds.blockMinY + 1, bounds.blockMinZ,
+                        bounds.blockMaxX, bounds.blockMaxY, bounds.blockMaxZ);
+            }
+            int cx = center.getBlockX();
+            int cz = center.getBlockZ();
+            int baseY = center.getBlockY();
+            int r = (int) Math.round(radius);
+            int height = 5;
+            return new GlassShell(cx - r, baseY + 1, cz - r, cx + r, baseY + height, cz + r);
+        }
 
-            // Fallback to configured spawn points if present
-            if (spawnPoints != null && index < spawnPoints.size()) {
-                Location loc = spawnPoints.get(index);
-                if (loc != null) return loc;
+        /**
+         * Starts building the enclosure over the next ticks and runs {@code onBuilt} once it is
+         * finished (right away if there is nothing to build). Glass still standing or being torn
+         * down is removed first, so an old teardown can't remove the new glass.
+         */
+        private void buildGlassBox(Runnable onBuilt) {
+            clearGlassBoxNow();
+
+            World world = glassShell == null ? null : Bukkit.getWorld(glassWorldId);
+            if (world == null) {
+                onBuilt.run();
+                return;
             }
 
-            // Final fallback: center
-            return center;
+            glassEnclosure = glassJournal.begin(world);
+            glassTask = newGlassTask(world, GlassTask.Mode.BUILD, () -> {
+                glassTask = null;
+                onBuilt.run();
+            });
+            activeArenas.add(this);
+            stepGlass();
         }
 
-        private void buildGlassBox() {
+        /**
+         * Starts removing the enclosure over the next ticks. A build still in progress is
+         * stopped where it is; the glass it already placed is removed.
+         */
+        public void clearGlassBox() {
+            if (glassTask != null) {
+                if (glassTask.mode() == GlassTask.Mode.CLEAR) return;
+                glassTask.stop();
+                glassTask = null;
+            }
+            if (glassBlocks.isEmpty()) {
+                endGlassEnclosure();
+                return;
+            }
+
+            World world = Bukkit.getWorld(glassWorldId);
+            if (world == null) {
+                // Closed in the journal as well: replaying it in a later session would put back
+                // blocks over whatever the world holds by then
+                getLogger().warning("World of arena " + id + " is not loaded, leaving its "
+                        + glassBlocks.size() + " glass block(s) in it.");
+                glassBlocks.clear();
+                glassOriginals.clear();
+                endGlassEnclosure();
+                return;
+            }
+
+            glassTask = newGlassTask(world, GlassTask.Mode.CLEAR, () -> {
+                glassTask = null;
+                endGlassEnclosure();
+            });
+            activeArenas.add(this);
+            stepGlass();
+        }
+
+        /** Steps the glass task; build slices are timed for /duelstats perf. */
+        private void stepGlass() {
+            GlassTask task = glassTask;
+            if (task.mode() != GlassTask.Mode.BUILD) {
+                task.tick();
+                return;
+            }
+            long start = perf.start();
+            int before = task.written();
+            task.tick();
+            glassProbe.stop(start);
+            glassProbe.addUnits(task.written() - before);
+        }
+
+        /** Removes the enclosure right now, for when the plugin is disabled. */
+        public void clearGlassBoxNow() {
             clearGlassBox();
+            if (glassTask != null) {
+                glassTask.finishNow();
+            }
+        }
 
-            if (center == null) return;
-            World world = center.getWorld();
-            if (world == null) return;
-
-            if (usingBox()) {
-                int minX = Math.min(box1.getBlockX(), box2.getBlockX());
-                int maxX = Math.max(box1.getBlockX(), box2.getBlockX());
-                int minY = Math.min(box1.getBlockY(), box2.getBlockY());
-                int maxY = Math.max(box1.getBlockY(), box2.getBlockY());
-                int minZ = Math.min(box1.getBlockZ(), box2.getBlockZ());
-                int maxZ = Math.max(box1.getBlockZ(), box2.getBlockZ());
-
-                for (int x = minX; x <= maxX; x++) {
-                    for (int z = minZ; z <= maxZ; z++) {
-                        for (int y = minY; y <= maxY; y++) {
-                            boolean isFloor = (y == minY);
-                            boolean isRoof = (y == maxY);
-                            boolean isWall = (x == minX || x == maxX || z == minZ || z == maxZ);
-
-                            if (isFloor) continue; // no floor
-                            if (!isWall && !isRoof) continue; // only walls and roof
-
-                            Block block = world.getBlockAt(x, y, z);
-                            if (block.getType() == Material.AIR || block.isPassable()) {
-                                block.setType(Material.BLUE_STAINED_GLASS, false);
-                                glassBlocks.add(block.getLocation());
-                            }
-                        }
-                    }
-                }
-            } else {
-                int cx = center.getBlockX();
-                int cz = center.getBlockZ();
-                int baseY = center.getBlockY();
-                int r = (int) Math.round(radius);
-                int height = 5;
-
-                for (int x = cx - r; x <= cx + r; x++) {
-                    for (int z = cz - r; z <= cz + r; z++) {
-                        for (int y = baseY + 1; y <= baseY + height; y++) {
-                            boolean isWall = (x == cx - r || x == cx + r || z == cz - r || z == cz + r);
-                            boolean isRoof = (y == baseY + height);
-                            if (!isWall && !isRoof) continue;
-
-                            Block block = world.getBlockAt(x, y, z);
-                            if (block.getType() == Material.AIR || block.isPassable()) {
-                                block.setType(Material.BLUE_STAINED_GLASS, false);
-                                glassBlocks.add(block.getLocation());
-                            }
+        /**
+         * Starts taking the snapshot changed blocks are restored from: the box, or the bounding box
+         * of the sphere. Done once, before the first match, while the arena is still untouched,
+         * over several ticks under the restore budget. Once it is complete the enclosure of the
+         * match that is then counting down is built; a match that ended meanwhile gets none.
+         *
+         * @return whether the snapshot is being taken; false if the arena has no volume to take
+         */
+        private boolean captureSnapshot() {
+            if (snapshotTask != null) return true;
+            World world = bounds == null ? null : Bukkit.getWorld(bounds.worldId);
+            if (world == null) return false;
+
+            long started = System.nanoTime();
+            ArenaSnapshot capturing = new ArenaSnapshot(world, bounds.blockMinX, bounds.blockMinY, bounds.blockMinZ,
+                    bounds.blockMaxX, bounds.blockMaxY, bounds.blockMaxZ);
+            snapshotTask = new SnapshotTask(world, capturing,
+                    plugin.getConfig().getInt("restore.blocks-per-tick", 2000),
+                    plugin.getConfig().getDouble("restore.tick-budget-ms", 2.0),
+                    () -> {
+                        snapshotTask = null;
+                        snapshot = capturing;
+                        getLogger().info("Took a snapshot of arena " + id + " (" + capturing.paletteSize()
+                                + " block types, " + (capturing.packedBytes() / 1024) + " KiB) over "
+                                + (System.nanoTime() - started) / 1_000_000 + " ms.");
+                        if (state == ArenaState.COUNTDOWN) {
+                            buildGlassBox(this::beginCountdown);
                         }
-                    }
-                }
+                    });
+            activeArenas.add(this);
+            snapshotTask.tick();
+            return true;
+        }
+
+        /** Marks a block as changed if it is in the arena's volume and the arena is in use. */
+        void trackChange(World world, int x, int y, int z) {
+            if (state == ArenaState.IDLE || snapshot == null || !snapshot.contains(x, y, z)) return;
+            if (!world.getUID().equals(bounds.worldId)) return;
+            changedBlocks.add(BlockKeySet.pack(x, y, z));
+        }
+
+        /**
+         * Starts putting the blocks changed during the match back over the next ticks. The arena
+         * is only released once that is done.
+         */
+        private void restoreChanges() {
+            if (restoreTask != null || changedBlocks.isEmpty() || snapshot == null) return;
+
+            World world = Bukkit.getWorld(bounds.worldId);
+            if (world == null) {
+                changedBlocks.clear();
+                return;
             }
+
+            long[] changed = changedBlocks.toArray();
+            changedBlocks.clear();
+            restoreTask = new RestoreTask(world, snapshot, changed,
+                    plugin.getConfig().getInt("restore.blocks-per-tick", 2000),
+                    plugin.getConfig().getDouble("restore.tick-budget-ms", 2.0),
+                    () -> restoreTask = null);
+            activeArenas.add(this);
+            restoreTask.tick();
         }
 
-        public void clearGlassBox() {
-            if (glassBlocks.isEmpty()) return;
+        /** Restores every changed block right now, for when the plugin is disabled. */
+        public void restoreChangesNow() {
+            restoreChanges();
+            if (restoreTask != null) {
+                restoreTask.finishNow();
+            }
+        }
 
-            for (Location loc : glassBlocks) {
-                Block b = loc.getBlock();
-                if (b.getType() == Material.BLUE_STAINED_GLASS) {
-                    b.setType(Material.AIR, false);
-                }
+        private void endGlassEnclosure() {
+            if (glassEnclosure >= 0) {
+                glassJournal.removed(glassEnclosure);
+                glassEnclosure = -1;
             }
-            glassBlocks.clear();
+        }
+
+        private GlassTask newGlassTask(World world, GlassTask.Mode mode, Runnable onDone) {
+            return new GlassTask(world, glassShell, glassBlocks, glassOriginals, glassJournal, glassEnclosure, mode,
+                    plugin.getConfig().getInt("glass.blocks-per-tick", 2000),
+                    plugin.getConfig().getDouble("glass.tick-budget-ms", 2.0),
+                    onDone);
+        }
+
+        /** Teams that still have a player alive in the match. */
+        private int teamsLeft() {
+            int seen = 0; // bit per team; ArenaMode allows at most 32 teams
+            for (UUID uuid : playing) {
+                seen |= 1 << teamOf.getOrDefault(uuid, 0);
+            }
+            return Integer.bitCount(seen);
+        }
+
+        public void onKill(Player killer) {
+            killsOf.merge(killer.getUniqueId(), 1, Integer::sum);
         }
 
         public void onPlayerEliminated(Player player) {
@@ -691,52 +1482,82 @@ public final class DuelArenasPlugin extends JavaPlugin implements Listener, Comm
             if (!playing.contains(id)) return;
 
             playing.remove(id);
-            activeMatchByPlayer.remove(id);
+            leaveMatch(id);
 
-            if (playing.size() <= 1) {
-                Player winner = null;
-                if (playing.size() == 1) {
-                    UUID winnerId = playing.iterator().next();
-                    winner = Bukkit.getPlayer(winnerId);
-                }
+            if (teamsLeft() > 1) return;
+            if (state == ArenaState.COUNTDOWN) {
+                // Left before the fight started: no result, the others queue again
+                cancelMatch("§cA player left, so the match in " + this.id + " was cancelled.");
+                return;
+            }
+
+            int winningTeam = playing.isEmpty() ? -1 : teamOf.get(playing.iterator().next());
+            stats.recordMatch(this.id, mode, teamOf, winningTeam, killsOf, matchStartedAt, System.currentTimeMillis());
+
+            for (UUID winnerId : playing) {
+                Player winner = Bukkit.getPlayer(winnerId);
+                if (winner == null) continue;
+                winners.add(winnerId);
+                winner.sendMessage(mode.teamSize() == 1
+                        ? "§aYou won the duel in " + this.id + "!"
+                        : "§aYour team won the duel in " + this.id + "!");
+                winner.sendMessage("§eYou will be teleported to spawn in 10 seconds.");
+            }
+
+            // With or without a winner (everyone died/quit), wait 10s before the next match
+            endMatch();
+        }
 
-                // Reset state BEFORE scheduling next match
-                running = false;
-                pvpEnabled = false;
-                clearGlassBox();
+        /**
+         * Ends the match without a result, e.g. when a player leaves during the countdown or an
+         * admin stops it. Players still in it are told why and go back to the queue.
+         */
+        public void cancelMatch(String message) {
+            if (state != ArenaState.COUNTDOWN && state != ArenaState.FIGHTING) return;
 
-                for (UUID uuid : new HashSet<>(playing)) {
-                    activeMatchByPlayer.remove(uuid);
+            List<UUID> remaining = new ArrayList<>(playing);
+            endMatch();
+            for (UUID uuid : remaining) {
+                Player p = Bukkit.getPlayer(uuid);
+                if (p != null && p.isOnline()) {
+                    p.sendMessage(message);
                 }
-                playing.clear();
-
-                if (winner != null) {
-                    winner.sendMessage("§aYou won the duel in " + this.id + "!");
-                    winner.sendMessage("§eYou will be teleported to spawn in 10 seconds.");
-
-                    Player finalWinner = winner;
-                    new BukkitRunnable() {
-                        @Override
-                        public void run() {
-                            if (finalWinner.isOnline()) {
-                                Location spawn = finalWinner.getWorld().getSpawnLocation();
-                                finalWinner.teleport(spawn);
-                                finalWinner.sendMessage("§aTeleported to spawn.");
-                            }
-                            // After 10s cooldown, try to start the next match
-                            tryStartMatch();
-                        }
-                    }.runTaskLater(plugin, 200L); // 10 seconds
-                } else {
-                    // No winner (everyone died/quit) – still wait 10s before next match
-                    new BukkitRunnable() {
-                        @Override
-                        public void run() {
-                            tryStartMatch();
-                        }
-                    }.runTaskLater(plugin, 200L); // 10 seconds
+            }
+            requeue(remaining);
+        }
+
+        private void leaveMatch(UUID player) {
+            CombatState combat = combatStates.get(player);
+            if (combat != null && combat.arena == this) {
+                combat.leaveMatch();
+            }
+        }
+
+        private void endMatch() {
+            for (UUID uuid : playing) {
+                leaveMatch(uuid);
+            }
+            playing.clear();
+            teamOf.clear();
+            killsOf.clear();
+            matchPlayers.clear();
+
+            clearGlassBox();
+            restoreChanges();
+            setState(ArenaState.COOLDOWN);
+            stateTicks = COOLDOWN_TICKS;
+        }
+
+        private void sendWinnersHome() {
+            for (UUID uuid : winners) {
+                Player winner = Bukkit.getPlayer(uuid);
+                if (winner != null && winner.isOnline()) {
+                    Location spawn = winner.getWorld().getSpawnLocation();
+                    winner.teleport(spawn);
+                    winner.sendMessage("§aTeleported to spawn.");
                 }
             }
+            winners.clear();
         }
     }
 }
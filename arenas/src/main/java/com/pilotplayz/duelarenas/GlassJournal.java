@@ -0,0 +1,338 @@
+package com.pilotplayz.duelarenas;
+
+import com.pilotplayz.common.AsyncIo;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+/**
+ * Append-only journal of the glass the arenas place, so an enclosure left standing by a crash
+ * is removed on the next start instead of by hand.
+ * <p>
+ * Records are buffered on the main thread and handed to the journal's I/O lane at most once per
+ * tick, each batch written with an fsync. When no enclosure is standing anymore the file is
+ * truncated, so it only ever holds the enclosures of the current session, plus those of earlier
+ * ones still waiting for their world to load.
+ * <p>
+ * The file is a sequence of big-endian records, each starting with a one-byte tag:
+ * <pre>
+ *   'S' short id, UTF data            palette entry: block data string of an original block
+ *   'B' int enclosure, long, long     enclosure started in the world with that UID
+ *   'P' int enclosure, long, short    glass placed at a packed position over palette entry
+ *   'E' int enclosure                 enclosure fully removed
+ * </pre>
+ */
+final class GlassJournal {
+
+    private static final byte PALETTE = 'S';
+    private static final byte BEGIN = 'B';
+    private static final byte PLACED = 'P';
+    private static final byte END = 'E';
+
+    private final JavaPlugin plugin;
+    private final File file;
+    private final AsyncIo.Lane io;
+
+    // Main thread only
+    private final Map<BlockData, Short> palette = new HashMap<>();
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(pending);
+    private int nextEnclosure;
+    private int openEnclosures;
+    private boolean flushScheduled;
+    // Enclosures from before the restart in worlds that weren't loaded yet, by world UID
+    private final Map<UUID, List<Leftover>> leftovers = new HashMap<>();
+
+    // I/O lane only
+    private FileChannel channel;
+
+    GlassJournal(JavaPlugin plugin, File file, AsyncIo.Lane io) {
+        this.plugin = plugin;
+        this.file = file;
+        this.io = io;
+    }
+
+    // ======================= RECOVERY ======================= //
+
+    /**
+     * Puts back the original blocks under every enclosure the journal says is still standing,
+     * then empties the journal. Enclosures in worlds that aren't loaded yet are journaled again
+     * and kept for {@link #replay(World)}. Call once on enable, before any arena builds glass.
+     *
+     * @return number of blocks restored
+     */
+    int replay() {
+        if (!file.isFile() || file.length() == 0) {
+            return 0;
+        }
+
+        Map<Short, String> states = new HashMap<>();
+        Map<Integer, UUID> worlds = new HashMap<>();
+        Map<Integer, List<long[]>> placed = new LinkedHashMap<>();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int tag;
+                try {
+                    tag = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                switch (tag) {
+                    case PALETTE -> states.put(in.readShort(), in.readUTF());
+                    case BEGIN -> {
+                        int enclosure = in.readInt();
+                        worlds.put(enclosure, new UUID(in.readLong(), in.readLong()));
+                        placed.put(enclosure, new ArrayList<>());
+                    }
+                    case PLACED -> {
+                        int enclosure = in.readInt();
+                        long key = in.readLong();
+                        short state = in.readShort();
+                        List<long[]> blocks = placed.get(enclosure);
+                        if (blocks != null) blocks.add(new long[]{key, state});
+                    }
+                    case END -> placed.remove(in.readInt());
+                    default -> throw new IOException("unknown record tag " + tag);
+                }
+            }
+        } catch (EOFException e) {
+            // The last record was cut off by the crash; everything before it is still good
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Glass journal is damaged, restoring what could be read.", e);
+        }
+
+        truncate();
+        int restored = 0;
+        for (Map.Entry<Integer, List<long[]>> entry : placed.entrySet()) {
+            UUID uid = worlds.get(entry.getKey());
+            List<long[]> records = entry.getValue();
+            long[] keys = new long[records.size()];
+            BlockData[] originals = new BlockData[records.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = records.get(i)[0];
+                originals[i] = originalState(states.get((short) records.get(i)[1]));
+            }
+
+            World world = Bukkit.getWorld(uid);
+            if (world != null) {
+                restored += restore(world, keys, originals);
+            } else {
+                plugin.getLogger().warning("Glass journal: world " + uid + " is not loaded, removing "
+                        + keys.length + " glass block(s) from it once it is.");
+                // Journaled again, so they survive another restart before their world loads
+                int enclosure = begin(uid);
+                for (int i = 0; i < keys.length; i++) {
+                    placed(enclosure, keys[i], originals[i]);
+                }
+                leftovers.computeIfAbsent(uid, u -> new ArrayList<>()).add(new Leftover(enclosure, keys, originals));
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Puts back the original blocks under the enclosures {@link #replay()} found in this world
+     * while it wasn't loaded. Call when a world loads.
+     *
+     * @return number of blocks restored
+     */
+    int replay(World world) {
+        List<Leftover> waiting = leftovers.remove(world.getUID());
+        if (waiting == null) return 0;
+
+        int restored = 0;
+        for (Leftover leftover : waiting) {
+            restored += restore(world, leftover.keys, leftover.originals);
+            removed(leftover.enclosure);
+        }
+        return restored;
+    }
+
+    /** Puts the originals back where the glass is still there. */
+    private static int restore(World world, long[] keys, BlockData[] originals) {
+        int restored = 0;
+        for (int i = 0; i < keys.length; i++) {
+            long key = keys[i];
+            Block block = world.getBlockAt(BlockKeySet.unpackX(key), BlockKeySet.unpackY(key), BlockKeySet.unpackZ(key));
+            if (block.getType() != Material.BLUE_STAINED_GLASS) continue;
+
+            block.setBlockData(originals[i], false);
+            restored++;
+        }
+        return restored;
+    }
+
+    private BlockData originalState(String data) {
+        if (data != null) {
+            try {
+                return Bukkit.createBlockData(data);
+            } catch (IllegalArgumentException e) {
+                // Block from an older version or a removed datapack
+            }
+        }
+        return Bukkit.createBlockData(Material.AIR);
+    }
+
+    // ======================= RECORDING ======================= //
+
+    /**
+     * Starts a new enclosure in the world.
+     *
+     * @return its id for {@link #placed} and {@link #removed}
+     */
+    int begin(World world) {
+        return begin(world.getUID());
+    }
+
+    private int begin(UUID uid) {
+        int enclosure = nextEnclosure++;
+        openEnclosures++;
+        write(o -> {
+            o.writeByte(BEGIN);
+            o.writeInt(enclosure);
+            o.writeLong(uid.getMostSignificantBits());
+            o.writeLong(uid.getLeastSignificantBits());
+        });
+        return enclosure;
+    }
+
+    /** Records that glass is about to replace the block at the packed position. */
+    void placed(int enclosure, long key, BlockData original) {
+        Short state = palette.get(original);
+        if (state == null) {
+            short id = (short) palette.size();
+            String data = original.getAsString();
+            palette.put(original.clone(), id);
+            write(o -> {
+                o.writeByte(PALETTE);
+                o.writeShort(id);
+                o.writeUTF(data);
+            });
+            state = id;
+        }
+        short s = state;
+        write(o -> {
+            o.writeByte(PLACED);
+            o.writeInt(enclosure);
+            o.writeLong(key);
+            o.writeShort(s);
+        });
+    }
+
+    /** Records that all glass of the enclosure is gone. Empties the file once none is left. */
+    void removed(int enclosure) {
+        if (--openEnclosures <= 0) {
+            openEnclosures = 0;
+            truncate();
+            return;
+        }
+        write(o -> {
+            o.writeByte(END);
+            o.writeInt(enclosure);
+        });
+    }
+
+    /** Hands everything buffered so far to the I/O lane and closes the file after it. For onDisable. */
+    void close() {
+        flush();
+        io.run(() -> {
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not close the glass journal.", e);
+            }
+        });
+    }
+
+    private void write(RecordWriter writer) {
+        try {
+            writer.write(out);
+        } catch (IOException e) {
+            // Writes to a ByteArrayOutputStream don't fail
+            throw new UncheckedIOException(e);
+        }
+        if (!flushScheduled && plugin.isEnabled()) {
+            flushScheduled = true;
+            Bukkit.getScheduler().runTask(plugin, this::flush);
+        }
+    }
+
+    /**
+     * Hands the buffered records to the I/O lane.
+     *
+     * @return completes once they are on disk (or failed and were logged)
+     */
+    CompletableFuture<Void> flush() {
+        flushScheduled = false;
+        if (pending.size() == 0) return CompletableFuture.completedFuture(null);
+        byte[] batch = pending.toByteArray();
+        pending.reset();
+
+        return io.run(() -> {
+            try {
+                FileChannel ch = channel();
+                ch.write(ByteBuffer.wrap(batch));
+                ch.force(false);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not write the glass journal.", e);
+            }
+        });
+    }
+
+    /** Drops everything recorded so far, both buffered and on disk. */
+    private void truncate() {
+        pending.reset();
+        palette.clear();
+        io.run(() -> {
+            try {
+                FileChannel ch = channel();
+                ch.truncate(0);
+                ch.force(false);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not truncate the glass journal.", e);
+            }
+        });
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    /** Glass of one enclosure, journaled again under a new id, and what was there before it. */
+    private record Leftover(int enclosure, long[] keys, BlockData[] originals) {
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,85 @@
+package com.pilotplayz.duelarenas;
+
+/**
+ * The blocks of an arena enclosure: four walls and a roof around a block-aligned box, no
+ * floor. Blocks are numbered so the enclosure can be walked by index without ever visiting
+ * the inside of the box: the wall ring of every layer from the bottom up, then the inside of
+ * the roof.
+ */
+final class GlassShell {
+
+    final int minX, minY, minZ, maxX, maxY, maxZ;
+
+    // Blocks in one wall ring, and in the roof inside the ring
+    private final int ringSize;
+    private final long roofInside;
+    private final long size;
+
+    /**
+     * Walls span {@code minY..maxY} on the outline of the x/z rectangle, the roof covers it at
+     * {@code maxY}. An empty y range gives an empty shell.
+     */
+    GlassShell(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+
+        int width = maxX - minX + 1;
+        int depth = maxZ - minZ + 1;
+        int layers = maxY - minY + 1;
+        if (width <= 0 || depth <= 0 || layers <= 0) {
+            ringSize = 0;
+            roofInside = 0;
+        } else if (width <= 2 || depth <= 2) {
+            // Every column is on the outline
+            ringSize = width * depth;
+            roofInside = 0;
+        } else {
+            ringSize = 2 * width + 2 * (depth - 2);
+            roofInside = (long) (width - 2) * (depth - 2);
+        }
+        size = (long) ringSize * Math.max(0, layers) + roofInside;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * @param index 0 until {@link #size()}
+     * @return the block with that index, packed with {@link BlockKeySet#pack}
+     */
+    long key(long index) {
+        long walls = size - roofInside;
+        if (index >= walls) {
+            int inner = maxZ - minZ - 1;
+            long i = index - walls;
+            return BlockKeySet.pack(minX + 1 + (int) (i / inner), maxY, minZ + 1 + (int) (i % inner));
+        }
+
+        int y = minY + (int) (index / ringSize);
+        int i = (int) (index % ringSize);
+        int width = maxX - minX + 1;
+        int depth = maxZ - minZ + 1;
+
+        if (width <= 2 || depth <= 2) {
+            return BlockKeySet.pack(minX + i / depth, y, minZ + i % depth);
+        }
+        if (i < width) {
+            return BlockKeySet.pack(minX + i, y, minZ);
+        }
+        i -= width;
+        if (i < width) {
+            return BlockKeySet.pack(minX + i, y, maxZ);
+        }
+        i -= width;
+        if (i < depth - 2) {
+            return BlockKeySet.pack(minX, y, minZ + 1 + i);
+        }
+        i -= depth - 2;
+        return BlockKeySet.pack(maxX, y, minZ + 1 + i);
+    }
+}
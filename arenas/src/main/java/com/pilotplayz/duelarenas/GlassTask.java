@@ -0,0 +1,138 @@
+package com.pilotplayz.duelarenas;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+
+import java.util.Map;
+
+/**
+ * Builds or tears down an arena's glass enclosure a slice per tick, stepped by the arena it
+ * belongs to. Each tick writes blocks
+ * until either the block or the time budget is used up, walking the {@link GlassShell} so the
+ * inside of the box is never visited.
+ * <p>
+ * Building only replaces air and passable blocks and records every block it placed in the
+ * arena's glass set and the {@link GlassJournal}, keeping the original of every block that wasn't
+ * air (grass, flowers, snow, water). Tearing down only touches blocks from that set that are
+ * still glass, puts back their original or air, and empties the set once it is done.
+ */
+final class GlassTask {
+
+    enum Mode {BUILD, CLEAR}
+
+    private static final Material GLASS = Material.BLUE_STAINED_GLASS;
+
+    private final World world;
+    private final GlassShell shell;
+    private final BlockKeySet glass;
+    // Blocks other than air that glass replaced, by packed position
+    private final Map<Long, BlockData> originals;
+    private final GlassJournal journal;
+    private final int enclosure;
+    private final Mode mode;
+    private final int blocksPerTick;
+    private final long budgetNanos;
+    private final Runnable onDone;
+
+    private long next;
+    private int written;
+    private boolean done;
+
+    /**
+     * @param enclosure     journal id of the enclosure; every block placed is journaled under it
+     * @param blocksPerTick blocks visited per tick, <= 0 for no limit
+     * @param onDone        run on the main thread once every block was visited; not run if the
+     *                      task is stopped
+     */
+    GlassTask(World world, GlassShell shell, BlockKeySet glass, Map<Long, BlockData> originals, GlassJournal journal,
+              int enclosure, Mode mode, int blocksPerTick, double budgetMillis, Runnable onDone) {
+        this.world = world;
+        this.shell = shell;
+        this.glass = glass;
+        this.originals = originals;
+        this.journal = journal;
+        this.enclosure = enclosure;
+        this.mode = mode;
+        this.blocksPerTick = blocksPerTick <= 0 ? Integer.MAX_VALUE : blocksPerTick;
+        this.budgetNanos = Math.max(0L, (long) (budgetMillis * 1_000_000L));
+        this.onDone = onDone;
+    }
+
+    Mode mode() {
+        return mode;
+    }
+
+    /** Writes one slice. The first is written right away, the rest once per tick until done. */
+    void tick() {
+        if (done) return;
+        if (step(System.nanoTime() + budgetNanos, blocksPerTick)) {
+            finish();
+        }
+    }
+
+    /** Writes everything that is left right now, e.g. when the plugin is disabled. */
+    void finishNow() {
+        if (done) return;
+        step(Long.MAX_VALUE, Integer.MAX_VALUE);
+        finish();
+    }
+
+    /** Blocks placed or removed so far. */
+    int written() {
+        return written;
+    }
+
+    /** Stops the task where it is, without running the completion callback. */
+    void stop() {
+        done = true;
+    }
+
+    private boolean step(long deadlineNanos, int maxBlocks) {
+        long size = shell.size();
+        int visited = 0;
+        while (next < size) {
+            long key = shell.key(next++);
+            Block block = world.getBlockAt(BlockKeySet.unpackX(key), BlockKeySet.unpackY(key), BlockKeySet.unpackZ(key));
+
+            if (mode == Mode.BUILD) {
+                Material type = block.getType();
+                if (type == Material.AIR || block.isPassable()) {
+                    BlockData original = block.getBlockData();
+                    journal.placed(enclosure, key, original);
+                    if (type != Material.AIR) {
+                        originals.put(key, original);
+                    }
+                    block.setType(GLASS, false);
+                    glass.add(key);
+                    written++;
+                }
+            } else if (glass.contains(key) && block.getType() == GLASS) {
+                BlockData original = originals.get(key);
+                if (original != null) {
+                    block.setBlockData(original, false);
+                } else {
+                    block.setType(Material.AIR, false);
+                }
+                written++;
+            }
+
+            // Checking the clock every block would cost more than most block writes
+            if (++visited >= maxBlocks || ((visited & 63) == 0 && System.nanoTime() >= deadlineNanos)) {
+                break;
+            }
+        }
+        return next >= size;
+    }
+
+    private void finish() {
+        if (done) return;
+        done = true;
+        if (mode == Mode.CLEAR) {
+            glass.clear();
+            originals.clear();
+        }
+        onDone.run();
+    }
+}
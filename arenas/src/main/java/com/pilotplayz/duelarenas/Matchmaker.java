@@ -0,0 +1,243 @@
+package com.pilotplayz.duelarenas;
+
+import com.pilotplayz.duelarenas.DuelArenasPlugin.Arena;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.ToIntFunction;
+
+/**
+ * Queues of every {@link ArenaMode}, split into rating buckets. Joining only files a ticket;
+ * groups are formed in one pass over all queues every few ticks and each is sent to the next
+ * free arena of its mode, wherever that is.
+ * <p>
+ * A pass walks the buckets of a queue in rating order once, keeping a window of the last few
+ * tickets that could still play together, so it is linear in the number of queued players.
+ * Players start out only matched within their own bucket; the longer they wait, the more
+ * neighbouring buckets they accept, up to a limit.
+ */
+final class Matchmaker extends BukkitRunnable {
+
+    private final ArenaPool pool;
+    private final ToIntFunction<UUID> rating;
+    private final int bucketWidth;
+    private final long widenTicks;
+    private final int maxBucketSpread;
+    private final long intervalTicks;
+
+    private final Map<ArenaMode, ModeQueue> queues = new HashMap<>();
+    private final Map<UUID, Ticket> tickets = new HashMap<>();
+
+    // Ticks since start, counted by pass
+    private long now;
+
+    /**
+     * @param rating          rating of a player, looked up once when they join a queue
+     * @param bucketWidth     rating points per bucket
+     * @param widenSeconds    waiting time after which a player accepts one more bucket either side
+     * @param maxBucketSpread most buckets apart two players of one match may ever be
+     * @param intervalTicks   ticks between pairing passes
+     */
+    Matchmaker(ArenaPool pool, ToIntFunction<UUID> rating, int bucketWidth, double widenSeconds,
+               int maxBucketSpread, long intervalTicks) {
+        this.pool = pool;
+        this.rating = rating;
+        this.bucketWidth = Math.max(1, bucketWidth);
+        this.widenTicks = Math.max(1L, Math.round(widenSeconds * 20));
+        this.maxBucketSpread = Math.max(0, maxBucketSpread);
+        this.intervalTicks = Math.max(1L, intervalTicks);
+    }
+
+    void start(Plugin plugin) {
+        runTaskTimer(plugin, intervalTicks, intervalTicks);
+    }
+
+    // ======================= QUEUE ======================= //
+
+    /**
+     * Queues the player for the mode. {@code area} is the arena whose area they are standing
+     * in, or null if they joined by command; leaving that area leaves the queue again.
+     */
+    void join(Player player, ArenaMode mode, String area) {
+        UUID id = player.getUniqueId();
+        Ticket ticket = tickets.get(id);
+        if (ticket != null && ticket.mode.equals(mode)) {
+            // Walked into another arena of the same mode, or queued by command while in one
+            ticket.area = area;
+            return;
+        }
+        if (ticket != null) {
+            remove(ticket);
+            player.sendMessage("§cYou left the " + ticket.mode + " duel queue.");
+        }
+
+        int r = rating.applyAsInt(id);
+        ticket = new Ticket(id, mode, Math.floorDiv(r, bucketWidth), now, area);
+        tickets.put(id, ticket);
+        ModeQueue queue = queues.computeIfAbsent(mode, m -> new ModeQueue());
+        queue.buckets.computeIfAbsent(ticket.bucket, b -> new LinkedHashSet<>()).add(ticket);
+        queue.size++;
+
+        player.sendMessage("§aYou joined the " + mode + " duel queue! §7(" + queue.size + " waiting, "
+                + mode.players() + " per match)");
+    }
+
+    /** The player is standing in the arena's area; queue them for its mode. */
+    void enterArea(Player player, Arena arena) {
+        Ticket ticket = tickets.get(player.getUniqueId());
+        if (ticket != null && arena.name().equals(ticket.area)) return;
+        join(player, arena.mode(), arena.name());
+    }
+
+    /** The player left the arena's area; leave the queue if that is where they joined it. */
+    void leaveArea(Player player, Arena arena) {
+        Ticket ticket = tickets.get(player.getUniqueId());
+        if (ticket == null || !arena.name().equals(ticket.area)) return;
+
+        remove(ticket);
+        player.sendMessage("§cYou left the " + ticket.mode + " duel queue.");
+    }
+
+    /**
+     * Removes the player from their queue without a message, e.g. when they quit.
+     *
+     * @return the mode they were queued for, or null
+     */
+    ArenaMode leave(UUID id) {
+        Ticket ticket = tickets.get(id);
+        if (ticket == null) return null;
+        remove(ticket);
+        return ticket.mode;
+    }
+
+    /** Drops the queues of modes no arena is left for. */
+    void retainModes(Set<ArenaMode> modes) {
+        for (Iterator<Ticket> it = tickets.values().iterator(); it.hasNext(); ) {
+            Ticket ticket = it.next();
+            if (modes.contains(ticket.mode)) continue;
+            it.remove();
+            Player player = Bukkit.getPlayer(ticket.player);
+            if (player != null) {
+                player.sendMessage("§cThere are no " + ticket.mode + " arenas anymore; you left the queue.");
+            }
+        }
+        queues.keySet().retainAll(modes);
+    }
+
+    int queued(ArenaMode mode) {
+        ModeQueue queue = queues.get(mode);
+        return queue == null ? 0 : queue.size;
+    }
+
+    private void remove(Ticket ticket) {
+        tickets.remove(ticket.player);
+        ModeQueue queue = queues.get(ticket.mode);
+        if (queue == null) return;
+
+        LinkedHashSet<Ticket> bucket = queue.buckets.get(ticket.bucket);
+        if (bucket != null && bucket.remove(ticket)) {
+            queue.size--;
+            if (bucket.isEmpty()) {
+                queue.buckets.remove(ticket.bucket);
+            }
+        }
+    }
+
+    // ======================= PAIRING ======================= //
+
+    @Override
+    public void run() {
+        now += intervalTicks;
+        for (Map.Entry<ArenaMode, ModeQueue> entry : new ArrayList<>(queues.entrySet())) {
+            ArenaMode mode = entry.getKey();
+            ModeQueue queue = entry.getValue();
+            int free = pool.freeCount(mode);
+            if (queue.size >= mode.players() && free > 0) {
+                pair(mode, queue, free);
+            }
+        }
+    }
+
+    private void pair(ArenaMode mode, ModeQueue queue, int freeArenas) {
+        int players = mode.players();
+        List<Ticket[]> groups = new ArrayList<>();
+        ArrayDeque<Ticket> window = new ArrayDeque<>(players);
+
+        sweep:
+        for (LinkedHashSet<Ticket> bucket : queue.buckets.values()) {
+            for (Ticket ticket : bucket) {
+                // Buckets come in rating order, so anyone too far below this ticket is too far
+                // below the rest of the pass as well; they wait for the next one
+                while (!window.isEmpty() && ticket.bucket - window.peekFirst().bucket > reach(window, ticket)) {
+                    window.pollFirst();
+                }
+                window.addLast(ticket);
+
+                if (window.size() == players) {
+                    groups.add(window.toArray(new Ticket[0]));
+                    window.clear();
+                    if (groups.size() == freeArenas) break sweep;
+                }
+            }
+        }
+
+        for (Ticket[] group : groups) {
+            Arena arena = pool.takeFree(mode);
+            if (arena == null) break;
+
+            List<UUID> matchPlayers = new ArrayList<>(players);
+            for (Ticket ticket : group) {
+                remove(ticket);
+                matchPlayers.add(ticket.player);
+            }
+            arena.startMatch(matchPlayers);
+        }
+    }
+
+    /** Spread in buckets every ticket in the window and the new one all accept. */
+    private int reach(ArrayDeque<Ticket> window, Ticket ticket) {
+        int reach = reach(ticket);
+        for (Ticket other : window) {
+            reach = Math.min(reach, reach(other));
+        }
+        return reach;
+    }
+
+    private int reach(Ticket ticket) {
+        return (int) Math.min(maxBucketSpread, (now - ticket.since) / widenTicks);
+    }
+
+    private static final class ModeQueue {
+        // Bucket -> tickets in it, oldest first
+        final TreeMap<Integer, LinkedHashSet<Ticket>> buckets = new TreeMap<>();
+        int size;
+    }
+
+    private static final class Ticket {
+        final UUID player;
+        final ArenaMode mode;
+        final int bucket;
+        final long since;
+        String area;
+
+        Ticket(UUID player, ArenaMode mode, int bucket, long since, String area) {
+            this.player = player;
+            this.mode = mode;
+            this.bucket = bucket;
+            this.since = since;
+            this.area = area;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.pilotplayz.duelarenas;
+
+/**
+ * Duel record of one player as held in the {@link StatsStore} cache. Main thread only.
+ */
+final class PlayerStats {
+
+    private int wins;
+    private int losses;
+    private int kills;
+    private int rating;
+
+    // False until the stored row has been read; changes made before then are added on top of it
+    private boolean loaded;
+
+    PlayerStats(int rating) {
+        this.rating = rating;
+    }
+
+    int wins() {
+        return wins;
+    }
+
+    int losses() {
+        return losses;
+    }
+
+    int kills() {
+        return kills;
+    }
+
+    int rating() {
+        return rating;
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    void add(int wins, int losses, int kills, int ratingDelta) {
+        this.wins += wins;
+        this.losses += losses;
+        this.kills += kills;
+        this.rating += ratingDelta;
+    }
+
+    /** Adds the stored row under whatever happened since the entry was created. */
+    void merge(int wins, int losses, int kills, int storedRating, int defaultRating) {
+        add(wins, losses, kills, storedRating - defaultRating);
+        loaded = true;
+    }
+}
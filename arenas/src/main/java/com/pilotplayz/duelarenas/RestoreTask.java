@@ -0,0 +1,88 @@
+package com.pilotplayz.duelarenas;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+
+/**
+ * Puts the blocks changed during a match back to their {@link ArenaSnapshot} state, a slice per
+ * tick (stepped by the arena) under the same block and time budget as {@link GlassTask}. Only the changed positions are
+ * visited, and blocks that already match the snapshot are left alone.
+ */
+final class RestoreTask {
+
+    private final World world;
+    private final ArenaSnapshot snapshot;
+    private final long[] changed;
+    private final int blocksPerTick;
+    private final long budgetNanos;
+    private final Runnable onDone;
+
+    private int next;
+    private int restored;
+    private boolean done;
+
+    /**
+     * @param changed       packed positions to restore; positions outside the snapshot are skipped
+     * @param blocksPerTick blocks visited per tick, <= 0 for no limit
+     * @param onDone        run on the main thread once every block was visited
+     */
+    RestoreTask(World world, ArenaSnapshot snapshot, long[] changed, int blocksPerTick, double budgetMillis,
+                Runnable onDone) {
+        this.world = world;
+        this.snapshot = snapshot;
+        this.changed = changed;
+        this.blocksPerTick = blocksPerTick <= 0 ? Integer.MAX_VALUE : blocksPerTick;
+        this.budgetNanos = Math.max(0L, (long) (budgetMillis * 1_000_000L));
+        this.onDone = onDone;
+    }
+
+    /** Restores one slice. The first is restored right away, the rest once per tick until done. */
+    void tick() {
+        if (done) return;
+        if (step(System.nanoTime() + budgetNanos, blocksPerTick)) {
+            finish();
+        }
+    }
+
+    /** Restores everything that is left right now, e.g. when the plugin is disabled. */
+    void finishNow() {
+        if (done) return;
+        step(Long.MAX_VALUE, Integer.MAX_VALUE);
+        finish();
+    }
+
+    /** Blocks that were actually set back so far. */
+    int restored() {
+        return restored;
+    }
+
+    private boolean step(long deadlineNanos, int maxBlocks) {
+        int visited = 0;
+        while (next < changed.length) {
+            long key = changed[next++];
+            int x = BlockKeySet.unpackX(key), y = BlockKeySet.unpackY(key), z = BlockKeySet.unpackZ(key);
+
+            if (snapshot.contains(x, y, z)) {
+                BlockData original = snapshot.blockAt(x, y, z);
+                Block block = world.getBlockAt(x, y, z);
+                if (!block.getBlockData().equals(original)) {
+                    block.setBlockData(original, false);
+                    restored++;
+                }
+            }
+
+            // Checking the clock every block would cost more than most block writes
+            if (++visited >= maxBlocks || ((visited & 63) == 0 && System.nanoTime() >= deadlineNanos)) {
+                break;
+            }
+        }
+        return next >= changed.length;
+    }
+
+    private void finish() {
+        if (done) return;
+        done = true;
+        onDone.run();
+    }
+}
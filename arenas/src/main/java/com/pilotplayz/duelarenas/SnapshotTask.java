@@ -0,0 +1,100 @@
+package com.pilotplayz.duelarenas;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+
+/**
+ * Fills an {@link ArenaSnapshot} from the world a slice per tick (stepped by the arena), under the
+ * same block and time budget as {@link RestoreTask}. Works through the arena one chunk column at a
+ * time, loading the chunk if needed, and one y layer of the column at a time within it.
+ */
+final class SnapshotTask {
+
+    private final World world;
+    private final ArenaSnapshot snapshot;
+    private final int blocksPerTick;
+    private final long budgetNanos;
+    private final Runnable onDone;
+
+    private final int minCx, minCz, maxCx, maxCz;
+    private int cx, cz;
+    // Column being read and the next layer of it, null between columns
+    private ChunkSnapshot chunk;
+    private int y;
+    private boolean done;
+
+    /**
+     * @param blocksPerTick blocks read per tick, <= 0 for no limit
+     * @param onDone        run on the main thread once the snapshot is filled
+     */
+    SnapshotTask(World world, ArenaSnapshot snapshot, int blocksPerTick, double budgetMillis, Runnable onDone) {
+        this.world = world;
+        this.snapshot = snapshot;
+        this.blocksPerTick = blocksPerTick <= 0 ? Integer.MAX_VALUE : blocksPerTick;
+        this.budgetNanos = Math.max(0L, (long) (budgetMillis * 1_000_000L));
+        this.onDone = onDone;
+        this.minCx = snapshot.minX >> 4;
+        this.minCz = snapshot.minZ >> 4;
+        this.maxCx = snapshot.maxX >> 4;
+        this.maxCz = snapshot.maxZ >> 4;
+        this.cx = snapshot.isEmpty() ? maxCx + 1 : minCx;
+        this.cz = minCz;
+    }
+
+    /** Reads one slice. The first is read right away, the rest once per tick until done. */
+    void tick() {
+        if (done) return;
+        if (step(System.nanoTime() + budgetNanos, blocksPerTick)) {
+            finish();
+        }
+    }
+
+    /** Reads everything that is left right now. */
+    void finishNow() {
+        if (done) return;
+        step(Long.MAX_VALUE, Integer.MAX_VALUE);
+        finish();
+    }
+
+    private boolean step(long deadlineNanos, int maxBlocks) {
+        int visited = 0;
+        while (cx <= maxCx) {
+            if (chunk == null) {
+                chunk = world.getChunkAt(cx, cz).getChunkSnapshot(false, false, false);
+                y = snapshot.minY;
+            }
+            int fromX = Math.max(snapshot.minX, cx << 4), toX = Math.min(snapshot.maxX, (cx << 4) + 15);
+            int fromZ = Math.max(snapshot.minZ, cz << 4), toZ = Math.min(snapshot.maxZ, (cz << 4) + 15);
+
+            boolean outOfBudget = false;
+            // A layer is at most 256 blocks, so the clock is only checked between layers
+            while (y <= snapshot.maxY && !outOfBudget) {
+                for (int z = fromZ; z <= toZ; z++) {
+                    for (int x = fromX; x <= toX; x++) {
+                        snapshot.set(x, y, z, chunk.getBlockData(x & 15, y, z & 15));
+                    }
+                }
+                y++;
+                visited += (toX - fromX + 1) * (toZ - fromZ + 1);
+                outOfBudget = visited >= maxBlocks || System.nanoTime() >= deadlineNanos;
+            }
+
+            if (y > snapshot.maxY) {
+                chunk = null;
+                if (++cz > maxCz) {
+                    cz = minCz;
+                    cx++;
+                }
+            }
+            if (outOfBudget) break;
+        }
+        return cx > maxCx;
+    }
+
+    private void finish() {
+        if (done) return;
+        done = true;
+        snapshot.filled();
+        onDone.run();
+    }
+}
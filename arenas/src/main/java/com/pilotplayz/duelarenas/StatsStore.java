@@ -0,0 +1,337 @@
+package com.pilotplayz.duelarenas;
+
+import com.pilotplayz.common.AsyncIo;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+/**
+ * Wins, losses, kills, rating and match history per player, kept in an SQLite file.
+ * <p>
+ * Reads are served from an LRU cache on the main thread; a player missing from it gets an entry
+ * right away and their stored row is read in the background and merged in. Changes are applied
+ * to the cache at once and queued as deltas, which the store's I/O lane writes in one transaction
+ * every few seconds, so the main thread never waits for the database.
+ */
+final class StatsStore {
+
+    /** Rating of a player without any rated matches. */
+    static final int DEFAULT_RATING = 1000;
+
+    // Most a single match can move a rating
+    private static final int K_FACTOR = 32;
+
+    private static final String UPSERT_STATS =
+            "INSERT INTO player_stats (uuid, wins, losses, kills, rating) VALUES (?, ?, ?, ?, ?) "
+                    + "ON CONFLICT(uuid) DO UPDATE SET wins = wins + excluded.wins, losses = losses + excluded.losses, "
+                    + "kills = kills + excluded.kills, rating = rating + excluded.rating - " + DEFAULT_RATING;
+
+    private final JavaPlugin plugin;
+    private final File file;
+    private final AsyncIo.Lane io;
+
+    // Main thread only
+    private final Map<UUID, PlayerStats> cache;
+    private Map<UUID, int[]> pendingStats = new HashMap<>();
+    private List<MatchRecord> pendingMatches = new ArrayList<>();
+
+    // I/O lane only
+    private Connection connection;
+    private boolean broken;
+
+    StatsStore(JavaPlugin plugin, File file, int cacheSize, AsyncIo.Lane io) {
+        this.plugin = plugin;
+        this.file = file;
+        this.io = io;
+        int capacity = Math.max(16, cacheSize);
+        this.cache = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, PlayerStats> eldest) {
+                // Pending changes are queued separately, so an evicted entry loses nothing
+                return size() > capacity;
+            }
+        };
+    }
+
+    /** Writes queued changes every {@code intervalTicks}. */
+    void start(long intervalTicks) {
+        long interval = Math.max(1L, intervalTicks);
+        Bukkit.getScheduler().runTaskTimer(plugin, this::flush, interval, interval);
+    }
+
+    // ======================= READS ======================= //
+
+    /**
+     * @return the player's stats; served from the cache, and loaded in the background if they
+     * weren't in it (until then the counters only show what happened since)
+     */
+    PlayerStats stats(UUID player) {
+        PlayerStats stats = cache.get(player);
+        if (stats == null) {
+            stats = new PlayerStats(DEFAULT_RATING);
+            // Evicted with changes not handed to the I/O lane yet: the load won't see them
+            int[] pending = pendingStats.get(player);
+            if (pending != null) {
+                stats.add(pending[0], pending[1], pending[2], pending[3]);
+            }
+            cache.put(player, stats);
+            load(player);
+        }
+        return stats;
+    }
+
+    /** @return the player's stats if they are cached, without loading them otherwise */
+    PlayerStats cached(UUID player) {
+        return cache.get(player);
+    }
+
+    int rating(UUID player) {
+        return stats(player).rating();
+    }
+
+    private void load(UUID player) {
+        io.run(() -> {
+            int[] row = {0, 0, 0, DEFAULT_RATING};
+            Connection c = connection();
+            if (c != null) {
+                try (PreparedStatement st = c.prepareStatement(
+                        "SELECT wins, losses, kills, rating FROM player_stats WHERE uuid = ?")) {
+                    st.setString(1, player.toString());
+                    try (ResultSet rs = st.executeQuery()) {
+                        if (rs.next()) {
+                            row = new int[]{rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4)};
+                        }
+                    }
+                } catch (SQLException e) {
+                    plugin.getLogger().log(Level.WARNING, "Could not load duel stats of " + player + ".", e);
+                }
+            }
+
+            int[] loaded = row;
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    // Loads run before any change queued after them, so the row never contains
+                    // changes the entry already has
+                    PlayerStats stats = cache.get(player);
+                    if (stats != null && !stats.isLoaded()) {
+                        stats.merge(loaded[0], loaded[1], loaded[2], loaded[3], DEFAULT_RATING);
+                    }
+                });
+            }
+        });
+    }
+
+    // ======================= WRITES ======================= //
+
+    /**
+     * Records a finished match: updates wins, losses, kills and ratings of everyone in it and
+     * queues it for the match history.
+     *
+     * @param teams       team of every player that took part
+     * @param winningTeam team that won, or -1 if nobody did (no ratings change then)
+     * @param kills       kills per player in this match; players without kills may be missing
+     */
+    void recordMatch(String arena, ArenaMode mode, Map<UUID, Integer> teams, int winningTeam,
+                     Map<UUID, Integer> kills, long startedAt, long endedAt) {
+        // Rating of a team is the average of its players
+        Map<Integer, long[]> teamRating = new HashMap<>(); // team -> {sum, count}
+        long totalSum = 0;
+        for (Map.Entry<UUID, Integer> entry : teams.entrySet()) {
+            int r = rating(entry.getKey());
+            long[] sum = teamRating.computeIfAbsent(entry.getValue(), t -> new long[2]);
+            sum[0] += r;
+            sum[1]++;
+            totalSum += r;
+        }
+
+        MatchRecord match = new MatchRecord(arena, mode.toString(), winningTeam, startedAt, endedAt);
+        for (Map.Entry<UUID, Integer> entry : teams.entrySet()) {
+            UUID player = entry.getKey();
+            int team = entry.getValue();
+            long[] own = teamRating.get(team);
+            int opponents = teams.size() - (int) own[1];
+
+            int delta = 0;
+            if (winningTeam >= 0 && opponents > 0) {
+                double ownRating = (double) own[0] / own[1];
+                double opponentRating = (double) (totalSum - own[0]) / opponents;
+                double expected = 1.0 / (1.0 + Math.pow(10.0, (opponentRating - ownRating) / 400.0));
+                double score = team == winningTeam ? 1.0 : 0.0;
+                delta = (int) Math.round(K_FACTOR * (score - expected));
+            }
+
+            boolean won = team == winningTeam;
+            int k = kills.getOrDefault(player, 0);
+            PlayerStats stats = stats(player);
+            int before = stats.rating();
+            change(player, stats, won ? 1 : 0, won ? 0 : 1, k, delta);
+            match.players.add(new MatchRecord.Entry(player, team, won, k, before, before + delta));
+        }
+        pendingMatches.add(match);
+    }
+
+    private void change(UUID player, PlayerStats stats, int wins, int losses, int kills, int ratingDelta) {
+        stats.add(wins, losses, kills, ratingDelta);
+        int[] delta = pendingStats.computeIfAbsent(player, p -> new int[4]);
+        delta[0] += wins;
+        delta[1] += losses;
+        delta[2] += kills;
+        delta[3] += ratingDelta;
+    }
+
+    /**
+     * Hands the queued changes to the I/O lane as one batch.
+     *
+     * @return completes once the batch is committed (or failed and was logged)
+     */
+    CompletableFuture<Void> flush() {
+        if (pendingStats.isEmpty() && pendingMatches.isEmpty()) return CompletableFuture.completedFuture(null);
+        Map<UUID, int[]> stats = pendingStats;
+        List<MatchRecord> matches = pendingMatches;
+        pendingStats = new HashMap<>();
+        pendingMatches = new ArrayList<>();
+
+        return io.run(() -> write(stats, matches));
+    }
+
+    private void write(Map<UUID, int[]> stats, List<MatchRecord> matches) {
+        Connection c = connection();
+        if (c == null) return;
+
+        try {
+            c.setAutoCommit(false);
+            try (PreparedStatement st = c.prepareStatement(UPSERT_STATS)) {
+                for (Map.Entry<UUID, int[]> entry : stats.entrySet()) {
+                    int[] delta = entry.getValue();
+                    st.setString(1, entry.getKey().toString());
+                    st.setInt(2, delta[0]);
+                    st.setInt(3, delta[1]);
+                    st.setInt(4, delta[2]);
+                    st.setInt(5, DEFAULT_RATING + delta[3]);
+                    st.addBatch();
+                }
+                st.executeBatch();
+            }
+
+            try (PreparedStatement insertMatch = c.prepareStatement(
+                    "INSERT INTO matches (arena, mode, winning_team, started_at, ended_at) VALUES (?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement insertPlayer = c.prepareStatement(
+                         "INSERT INTO match_players (match_id, uuid, team, won, kills, rating_before, rating_after) "
+                                 + "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (MatchRecord match : matches) {
+                    insertMatch.setString(1, match.arena);
+                    insertMatch.setString(2, match.mode);
+                    insertMatch.setInt(3, match.winningTeam);
+                    insertMatch.setLong(4, match.startedAt);
+                    insertMatch.setLong(5, match.endedAt);
+                    insertMatch.executeUpdate();
+
+                    long id;
+                    try (ResultSet keys = insertMatch.getGeneratedKeys()) {
+                        if (!keys.next()) throw new SQLException("no id generated for match");
+                        id = keys.getLong(1);
+                    }
+                    for (MatchRecord.Entry entry : match.players) {
+                        insertPlayer.setLong(1, id);
+                        insertPlayer.setString(2, entry.player.toString());
+                        insertPlayer.setInt(3, entry.team);
+                        insertPlayer.setBoolean(4, entry.won);
+                        insertPlayer.setInt(5, entry.kills);
+                        insertPlayer.setInt(6, entry.ratingBefore);
+                        insertPlayer.setInt(7, entry.ratingAfter);
+                        insertPlayer.addBatch();
+                    }
+                }
+                insertPlayer.executeBatch();
+            }
+            c.commit();
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not save duel stats ("
+                    + stats.size() + " player(s), " + matches.size() + " match(es) lost).", e);
+            try {
+                c.rollback();
+            } catch (SQLException ignored) {
+                // Nothing more to lose
+            }
+        }
+    }
+
+    /** Hands everything queued so far to the I/O lane and closes the database after it. For onDisable. */
+    void close() {
+        flush();
+        io.run(() -> {
+            try {
+                if (connection != null) connection.close();
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not close the duel stats database.", e);
+            }
+        });
+    }
+
+    /** @return the open database, or null if it can't be opened (logged once) */
+    private Connection connection() {
+        if (connection != null || broken) return connection;
+        try {
+            // Bundled with the server
+            Class.forName("org.sqlite.JDBC");
+            file.getParentFile().mkdirs();
+            Connection c = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+            try (Statement st = c.createStatement()) {
+                st.execute("PRAGMA journal_mode=WAL");
+                st.execute("CREATE TABLE IF NOT EXISTS player_stats ("
+                        + "uuid TEXT PRIMARY KEY, wins INTEGER NOT NULL DEFAULT 0, losses INTEGER NOT NULL DEFAULT 0, "
+                        + "kills INTEGER NOT NULL DEFAULT 0, rating INTEGER NOT NULL DEFAULT " + DEFAULT_RATING + ")");
+                st.execute("CREATE TABLE IF NOT EXISTS matches ("
+                        + "id INTEGER PRIMARY KEY AUTOINCREMENT, arena TEXT NOT NULL, mode TEXT NOT NULL, "
+                        + "winning_team INTEGER NOT NULL, started_at INTEGER NOT NULL, ended_at INTEGER NOT NULL)");
+                st.execute("CREATE TABLE IF NOT EXISTS match_players ("
+                        + "match_id INTEGER NOT NULL REFERENCES matches(id), uuid TEXT NOT NULL, team INTEGER NOT NULL, "
+                        + "won INTEGER NOT NULL, kills INTEGER NOT NULL, rating_before INTEGER NOT NULL, "
+                        + "rating_after INTEGER NOT NULL, PRIMARY KEY (match_id, uuid))");
+                st.execute("CREATE INDEX IF NOT EXISTS match_players_uuid ON match_players (uuid)");
+            }
+            connection = c;
+        } catch (ClassNotFoundException | SQLException e) {
+            broken = true;
+            plugin.getLogger().log(Level.SEVERE, "Could not open " + file.getName()
+                    + "; duel stats will not be saved this session.", e);
+        }
+        return connection;
+    }
+
+    private static final class MatchRecord {
+        final String arena;
+        final String mode;
+        final int winningTeam;
+        final long startedAt;
+        final long endedAt;
+        final List<Entry> players = new ArrayList<>();
+
+        MatchRecord(String arena, String mode, int winningTeam, long startedAt, long endedAt) {
+            this.arena = arena;
+            this.mode = mode;
+            this.winningTeam = winningTeam;
+            this.startedAt = startedAt;
+            this.endedAt = endedAt;
+        }
+
+        record Entry(UUID player, int team, boolean won, int kills, int ratingBefore, int ratingAfter) {
+        }
+    }
+}
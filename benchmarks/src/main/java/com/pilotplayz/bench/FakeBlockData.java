@@ -0,0 +1,70 @@
+package com.pilotplayz.bench;
+
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+
+import java.util.Locale;
+
+/**
+ * {@link BlockData} of the in-memory world: just the material, with no block state properties.
+ * There is one shared, immutable instance per material, so equal block data is the same object.
+ */
+public final class FakeBlockData {
+
+    static final Material[] MATERIALS = Material.values();
+
+    private static final BlockData[] BY_ORDINAL = new BlockData[MATERIALS.length];
+
+    private FakeBlockData() {
+    }
+
+    public static BlockData of(Material material) {
+        return of(material.ordinal());
+    }
+
+    static BlockData of(int ordinal) {
+        BlockData data = BY_ORDINAL[ordinal];
+        if (data == null) {
+            // Racing threads may both create one; either is fine, they're only compared by material
+            data = create(MATERIALS[ordinal]);
+            BY_ORDINAL[ordinal] = data;
+        }
+        return data;
+    }
+
+    /**
+     * Parses {@code minecraft:stone} or {@code stone}; block state properties are ignored.
+     *
+     * @throws IllegalArgumentException for an unknown material, like the server
+     */
+    public static BlockData parse(String data) {
+        String name = data;
+        int properties = name.indexOf('[');
+        if (properties >= 0) name = name.substring(0, properties);
+        if (name.startsWith("minecraft:")) name = name.substring("minecraft:".length());
+        return of(Material.valueOf(name.toUpperCase(Locale.ROOT)));
+    }
+
+    private static BlockData create(Material material) {
+        String asString = "minecraft:" + material.name().toLowerCase(Locale.ROOT);
+        return FakeWorld.proxy(BlockData.class, (self, m, a) -> {
+            switch (m.getName()) {
+                case "getMaterial":
+                    return material;
+                case "getAsString":
+                    return asString;
+                case "clone":
+                    return self;
+                case "matches":
+                    return self == a[0];
+                case "equals":
+                    return self == a[0];
+                case "hashCode":
+                    return material.ordinal();
+                default:
+                    break;
+            }
+            return FakeWorld.objectMethod(self, m, a, "BlockData[" + asString + "]");
+        });
+    }
+}
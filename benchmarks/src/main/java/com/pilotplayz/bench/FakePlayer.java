@@ -0,0 +1,129 @@
+package com.pilotplayz.bench;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.lang.reflect.Method;
+import java.util.UUID;
+
+/**
+ * In-memory stand-in for a {@link Player}: a name, a UUID, a location and health. Chat
+ * messages are counted and dropped. Once the player has joined a {@link FakeServer}, a
+ * teleport fires {@code PlayerTeleportEvent} there like on a server. Like {@link FakeWorld},
+ * anything not handled here throws.
+ */
+public final class FakePlayer {
+
+    public static final double MAX_HEALTH = 20.0;
+
+    private final String name;
+    private final UUID uid;
+    private final Player player;
+
+    private FakeServer server;
+    private Location location;
+    private double health = MAX_HEALTH;
+    private Player killer;
+    private boolean op;
+    private int messages;
+
+    public FakePlayer(String name, Location location) {
+        this.name = name;
+        this.uid = UUID.nameUUIDFromBytes(("bench:" + name).getBytes());
+        this.location = location;
+        this.player = FakeWorld.proxy(Player.class, this::invoke);
+    }
+
+    /** The Bukkit view of this player. */
+    public Player player() {
+        return player;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Location location() {
+        return location;
+    }
+
+    /** Moves the player without firing anything, e.g. after the caller fired the move itself. */
+    public void setLocation(Location location) {
+        this.location = location;
+    }
+
+    public double health() {
+        return health;
+    }
+
+    public void setHealth(double health) {
+        this.health = Math.max(0, Math.min(MAX_HEALTH, health));
+    }
+
+    /** The player who dealt the last hit, reported by {@code getKiller()} after a death. */
+    public void setKiller(FakePlayer killer) {
+        this.killer = killer == null ? null : killer.player;
+    }
+
+    /** Ops have every permission. */
+    public void setOp(boolean op) {
+        this.op = op;
+    }
+
+    /** Messages sent to the player so far. */
+    public int messages() {
+        return messages;
+    }
+
+    /** Online on the server, or null while offline. */
+    FakeServer server() {
+        return server;
+    }
+
+    void setServer(FakeServer server) {
+        this.server = server;
+    }
+
+    private Object invoke(Object self, Method m, Object[] a) {
+        switch (m.getName()) {
+            case "getName":
+            case "getDisplayName":
+                return name;
+            case "getUniqueId":
+                return uid;
+            case "isOnline":
+                return server != null;
+            case "isOp":
+                return op;
+            case "hasPermission":
+                return op;
+            case "getLocation":
+                if (a == null || a.length == 0) {
+                    return location.clone();
+                }
+                break;
+            case "getWorld":
+                return location.getWorld();
+            case "teleport":
+                if (a[0] instanceof Location to) {
+                    return server == null ? false : server.teleport(this, to);
+                }
+                break;
+            case "getHealth":
+                return health;
+            case "setHealth":
+                setHealth((double) a[0]);
+                return null;
+            case "getKiller":
+                return killer;
+            case "setFallDistance":
+                return null;
+            case "sendMessage":
+                messages++;
+                return null;
+            default:
+                break;
+        }
+        return FakeWorld.objectMethod(self, m, a, "Player[" + name + "]");
+    }
+}
@@ -0,0 +1,121 @@
+package com.pilotplayz.bench;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@link PluginManager} of a {@link FakeServer}: registers {@link EventHandler} methods and
+ * calls them the way the server does. Handlers are grouped by the event class that declares
+ * {@code getHandlerList()}, so a {@code PlayerMoveEvent} handler doesn't see teleports; they run
+ * from {@code LOWEST} to {@code MONITOR} priority, and {@code ignoreCancelled} handlers skip
+ * cancelled events. A handler that throws is logged and the others still run.
+ */
+final class FakePluginManager {
+
+    private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private record Handler(Class<?> event, EventPriority priority, boolean ignoreCancelled,
+                           Object listener, String name, MethodHandle method) {
+    }
+
+    private final Logger logger;
+    private final PluginManager manager = FakeWorld.proxy(PluginManager.class, this::invoke);
+    private final List<Handler> handlers = new ArrayList<>();
+    // Handlers by event class, in call order; rebuilt after every registration
+    private final Map<Class<?>, Handler[]> byEvent = new HashMap<>();
+
+    FakePluginManager(Logger logger) {
+        this.logger = logger;
+    }
+
+    PluginManager manager() {
+        return manager;
+    }
+
+    void registerEvents(Listener listener, Plugin plugin) {
+        Set<Method> methods = new LinkedHashSet<>(List.of(listener.getClass().getMethods()));
+        methods.addAll(List.of(listener.getClass().getDeclaredMethods()));
+        for (Method method : methods) {
+            EventHandler annotation = method.getAnnotation(EventHandler.class);
+            if (annotation == null || method.isBridge() || method.isSynthetic()) continue;
+            Class<?>[] params = method.getParameterTypes();
+            if (params.length != 1 || !Event.class.isAssignableFrom(params[0])) {
+                throw new IllegalArgumentException(plugin.getName() + " has an invalid event handler: " + method);
+            }
+            try {
+                method.setAccessible(true);
+                MethodHandle handle = MethodHandles.lookup().unreflect(method).asType(HANDLER_TYPE);
+                handlers.add(new Handler(registrationClass(params[0]), annotation.priority(), annotation.ignoreCancelled(),
+                        listener, plugin.getName() + " " + method.getName(), handle));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot call " + method, e);
+            }
+        }
+        byEvent.clear();
+    }
+
+    /** Calls every handler of the event. Main thread only. */
+    void callEvent(Event event) {
+        for (Handler handler : byEvent.computeIfAbsent(registrationClass(event.getClass()), this::collect)) {
+            if (handler.ignoreCancelled && event instanceof Cancellable c && c.isCancelled()) continue;
+            try {
+                handler.method.invokeExact(handler.listener, (Object) event);
+            } catch (Throwable t) {
+                logger.log(Level.SEVERE, "Could not pass event " + event.getEventName() + " to " + handler.name, t);
+            }
+        }
+    }
+
+    private Handler[] collect(Class<?> event) {
+        return handlers.stream()
+                .filter(h -> h.event == event)
+                .sorted(Comparator.comparingInt(h -> h.priority.ordinal()))
+                .toArray(Handler[]::new);
+    }
+
+    /** The event class whose handler list the event uses: the nearest one declaring {@code getHandlerList()}. */
+    private static Class<?> registrationClass(Class<?> clazz) {
+        for (Class<?> c = clazz; c != null && c != Event.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("getHandlerList");
+                return c;
+            } catch (NoSuchMethodException e) {
+                // Uses the handler list of a superclass
+            }
+        }
+        throw new IllegalArgumentException(clazz.getName() + " has no static getHandlerList method");
+    }
+
+    private Object invoke(Object self, Method m, Object[] a) {
+        switch (m.getName()) {
+            case "registerEvents":
+                registerEvents((Listener) a[0], (Plugin) a[1]);
+                return null;
+            case "callEvent":
+                callEvent((Event) a[0]);
+                return null;
+            default:
+                break;
+        }
+        return FakeWorld.objectMethod(self, m, a, "PluginManager");
+    }
+}
@@ -0,0 +1,187 @@
+package com.pilotplayz.bench;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.Method;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@link BukkitScheduler} of a {@link FakeServer}. Sync tasks run when the server ticks,
+ * with the server's timing: a task scheduled during tick {@code n} with a delay of {@code d}
+ * runs in tick {@code n + max(d, 1)}. Tasks can be scheduled from any thread; async ones run
+ * right away on a thread pool.
+ */
+final class FakeScheduler {
+
+    private final Logger logger;
+    private final BukkitScheduler scheduler = FakeWorld.proxy(BukkitScheduler.class, this::invoke);
+    private final AtomicInteger ids = new AtomicInteger();
+    private final Map<Integer, Task> byId = new ConcurrentHashMap<>();
+    // Scheduled since the last tick, possibly from other threads
+    private final Queue<Task> incoming = new ConcurrentLinkedQueue<>();
+    // Main thread only
+    private final PriorityQueue<Task> queue = new PriorityQueue<>(
+            Comparator.comparingLong((Task t) -> t.nextRun).thenComparingInt(t -> t.id));
+    private final ExecutorService async = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "Fake Scheduler Async");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile long currentTick;
+
+    FakeScheduler(Logger logger) {
+        this.logger = logger;
+    }
+
+    BukkitScheduler scheduler() {
+        return scheduler;
+    }
+
+    long currentTick() {
+        return currentTick;
+    }
+
+    /** Runs every sync task that is due in the next tick. Main thread only. */
+    void tick() {
+        long tick = ++currentTick;
+        for (Task task; (task = incoming.poll()) != null; ) {
+            queue.add(task);
+        }
+        while (!queue.isEmpty() && queue.peek().nextRun <= tick) {
+            Task task = queue.poll();
+            if (task.cancelled) continue;
+            try {
+                task.runnable.run();
+            } catch (Throwable t) {
+                logger.log(Level.WARNING, "Task #" + task.id + " for " + task.plugin.getName() + " generated an exception", t);
+            }
+            if (task.period > 0 && !task.cancelled) {
+                task.nextRun = tick + task.period;
+                queue.add(task);
+            } else {
+                byId.remove(task.id);
+            }
+        }
+    }
+
+    void cancelTasks(Plugin plugin) {
+        for (Task task : byId.values()) {
+            if (task.plugin == plugin) task.cancel();
+        }
+    }
+
+    void shutdown() {
+        async.shutdownNow();
+    }
+
+    private Task schedule(Plugin plugin, Runnable runnable, long delay, long period) {
+        Task task = new Task(ids.incrementAndGet(), plugin, runnable, true, currentTick + Math.max(0L, delay), period);
+        byId.put(task.id, task);
+        incoming.add(task);
+        return task;
+    }
+
+    private Task runAsync(Plugin plugin, Runnable runnable) {
+        Task task = new Task(ids.incrementAndGet(), plugin, runnable, false, currentTick, -1L);
+        async.execute(() -> {
+            if (!task.cancelled) runnable.run();
+        });
+        return task;
+    }
+
+    private Object invoke(Object self, Method m, Object[] a) {
+        int n = a == null ? 0 : a.length;
+        if (n >= 2 && a[0] instanceof Plugin plugin && a[1] instanceof Runnable runnable) {
+            switch (m.getName()) {
+                case "runTask":
+                    return schedule(plugin, runnable, 0L, -1L).view;
+                case "runTaskLater":
+                    return schedule(plugin, runnable, (long) a[2], -1L).view;
+                case "runTaskTimer":
+                    return schedule(plugin, runnable, (long) a[2], Math.max(1L, (long) a[3])).view;
+                case "scheduleSyncDelayedTask":
+                    return schedule(plugin, runnable, n > 2 ? (long) a[2] : 0L, -1L).id;
+                case "scheduleSyncRepeatingTask":
+                    return schedule(plugin, runnable, (long) a[2], Math.max(1L, (long) a[3])).id;
+                case "runTaskAsynchronously":
+                    return runAsync(plugin, runnable).view;
+                default:
+                    break;
+            }
+        }
+        switch (m.getName()) {
+            case "cancelTask": {
+                Task task = byId.get((int) a[0]);
+                if (task != null) task.cancel();
+                return null;
+            }
+            case "cancelTasks":
+                cancelTasks((Plugin) a[0]);
+                return null;
+            case "isQueued":
+                return byId.containsKey((int) a[0]);
+            case "isCurrentlyRunning":
+                return false;
+            default:
+                break;
+        }
+        return FakeWorld.objectMethod(self, m, a, "Scheduler");
+    }
+
+    private final class Task {
+
+        final int id;
+        final Plugin plugin;
+        final Runnable runnable;
+        final boolean sync;
+        final long period;
+        final BukkitTask view;
+        long nextRun;
+        volatile boolean cancelled;
+
+        Task(int id, Plugin plugin, Runnable runnable, boolean sync, long nextRun, long period) {
+            this.id = id;
+            this.plugin = plugin;
+            this.runnable = runnable;
+            this.sync = sync;
+            this.nextRun = nextRun;
+            this.period = period;
+            this.view = FakeWorld.proxy(BukkitTask.class, (self, m, a) -> {
+                switch (m.getName()) {
+                    case "getTaskId":
+                        return this.id;
+                    case "getOwner":
+                        return this.plugin;
+                    case "isSync":
+                        return sync;
+                    case "isCancelled":
+                        return cancelled;
+                    case "cancel":
+                        cancel();
+                        return null;
+                    default:
+                        break;
+                }
+                return FakeWorld.objectMethod(self, m, a, "Task[" + this.id + "]");
+            });
+        }
+
+        void cancel() {
+            cancelled = true;
+            byId.remove(id);
+        }
+    }
+}
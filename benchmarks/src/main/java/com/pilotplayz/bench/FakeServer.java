@@ -0,0 +1,380 @@
+package com.pilotplayz.bench;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * In-memory stand-in for the part of the {@link Server} the plugins use: {@link FakeWorld}s,
+ * {@link FakePlayer}s, a tick-driven scheduler and an event bus. Installed as the
+ * {@link Bukkit} singleton, so the plugins' static {@code Bukkit.*} calls land here, and it can
+ * enable a real plugin class and run it tick by tick without a Minecraft server.
+ * <p>
+ * Main-thread work is timed: {@link #tick()} and every {@link #callEvent} made from outside a
+ * handler add to {@link #takeBusyNanos()}, so a driver can measure tick time without its own
+ * bookkeeping in it.
+ */
+public final class FakeServer {
+
+    private static FakeServer installed;
+
+    private final Logger logger;
+    private final Server server;
+    private final FakeScheduler scheduler;
+    private final FakePluginManager plugins;
+    private final Thread mainThread = Thread.currentThread();
+    private final Map<String, FakeWorld> worlds = new LinkedHashMap<>();
+    private final Map<UUID, FakePlayer> online = new LinkedHashMap<>();
+    private final Collection<Player> onlineView;
+    private final Map<String, PluginCommand> commands = new HashMap<>();
+    private final CommandSender console;
+
+    // Plugin whose onEnable is running; its getCommand calls create the commands
+    private JavaPlugin enabling;
+    // Nesting of timed work; events fired from inside a handler or task are already being timed
+    private int busyDepth;
+    private long busyNanos;
+    private int broadcasts;
+
+    private FakeServer(Level logLevel) {
+        this.logger = logger("Server", logLevel);
+        this.server = FakeWorld.proxy(Server.class, this::invoke);
+        this.scheduler = new FakeScheduler(logger);
+        this.plugins = new FakePluginManager(logger);
+        this.onlineView = Collections.unmodifiableCollection(new PlayersView());
+        this.console = FakeWorld.proxy(CommandSender.class, (self, m, a) -> switch (m.getName()) {
+            case "getName" -> "CONSOLE";
+            case "hasPermission", "isOp" -> true;
+            case "sendMessage" -> {
+                logger.fine(String.valueOf(a[0]));
+                yield null;
+            }
+            default -> FakeWorld.objectMethod(self, m, a, "Console");
+        });
+    }
+
+    /**
+     * Creates the server and makes it the {@link Bukkit} singleton. Once per JVM, on the thread
+     * that will be the main thread.
+     */
+    public static synchronized FakeServer install(Level logLevel) {
+        if (installed != null) {
+            throw new IllegalStateException("A fake server is already installed");
+        }
+        FakeServer fake = new FakeServer(logLevel);
+        // Bukkit.setServer also logs build information that only a real server has
+        Reflect.set(Bukkit.class, null, "server", fake.server);
+        installed = fake;
+        return fake;
+    }
+
+    public Server server() {
+        return server;
+    }
+
+    public Logger logger() {
+        return logger;
+    }
+
+    public CommandSender console() {
+        return console;
+    }
+
+    public FakeWorld createWorld(String name) {
+        FakeWorld world = new FakeWorld(name);
+        worlds.put(name, world);
+        return world;
+    }
+
+    public long currentTick() {
+        return scheduler.currentTick();
+    }
+
+    /** Broadcast messages so far. */
+    public int broadcasts() {
+        return broadcasts;
+    }
+
+    // ======================= PLAYERS ======================= //
+
+    public Collection<FakePlayer> players() {
+        return Collections.unmodifiableCollection(online.values());
+    }
+
+    /** Puts the player online and fires {@link PlayerJoinEvent}. */
+    public void join(FakePlayer player) {
+        player.setServer(this);
+        online.put(player.player().getUniqueId(), player);
+        callEvent(new PlayerJoinEvent(player.player(), (String) null));
+    }
+
+    /** Fires {@link PlayerQuitEvent} and takes the player offline. */
+    public void quit(FakePlayer player) {
+        callEvent(new PlayerQuitEvent(player.player(), (String) null));
+        online.remove(player.player().getUniqueId());
+        player.setServer(null);
+    }
+
+    /** {@code Player.teleport}: fires {@link PlayerTeleportEvent} and moves the player unless it is cancelled. */
+    boolean teleport(FakePlayer player, Location to) {
+        PlayerTeleportEvent event = new PlayerTeleportEvent(player.player(), player.location().clone(), to.clone(),
+                PlayerTeleportEvent.TeleportCause.PLUGIN);
+        if (!callEvent(event)) return false;
+        player.setLocation(event.getTo());
+        return true;
+    }
+
+    // ======================= TICKING ======================= //
+
+    /**
+     * Calls the event's handlers.
+     *
+     * @return false if the event was cancelled
+     */
+    public boolean callEvent(Event event) {
+        long start = busyDepth++ == 0 ? System.nanoTime() : 0L;
+        try {
+            plugins.callEvent(event);
+        } finally {
+            if (--busyDepth == 0) busyNanos += System.nanoTime() - start;
+        }
+        return !(event instanceof Cancellable c) || !c.isCancelled();
+    }
+
+    /** Runs the scheduler for one tick. */
+    public void tick() {
+        long start = busyDepth++ == 0 ? System.nanoTime() : 0L;
+        try {
+            scheduler.tick();
+        } finally {
+            if (--busyDepth == 0) busyNanos += System.nanoTime() - start;
+        }
+    }
+
+    /** @return main-thread time spent in plugins since the last call */
+    public long takeBusyNanos() {
+        long busy = busyNanos;
+        busyNanos = 0;
+        return busy;
+    }
+
+    // ======================= PLUGINS ======================= //
+
+    /**
+     * Enables a plugin created with {@link Reflect#allocate} (JavaPlugin's constructor only
+     * runs in a server's plugin class loader): gives it the state a server hands a plugin
+     * on load, a data folder holding {@code config}, and calls {@code onEnable}.
+     * <p>
+     * The state is set on Paper's private JavaPlugin fields by name; if a Paper update renames
+     * one, this fails with the field's name.
+     */
+    public void enable(JavaPlugin plugin, String name, String config) throws IOException {
+        File dataFolder = Files.createTempDirectory("fake-" + name.toLowerCase(Locale.ROOT)).toFile();
+        File configFile = new File(dataFolder, "config.yml");
+        Files.writeString(configFile.toPath(), config, StandardCharsets.UTF_8);
+
+        setPluginField(plugin, "server", server);
+        setPluginField(plugin, "description", new PluginDescriptionFile(name, "fake", plugin.getClass().getName()));
+        setPluginField(plugin, "dataFolder", dataFolder);
+        setPluginField(plugin, "configFile", configFile);
+        setPluginField(plugin, "newConfig", YamlConfiguration.loadConfiguration(configFile));
+        setPluginField(plugin, "classLoader", plugin.getClass().getClassLoader());
+        setPluginField(plugin, "logger", logger(name, logger.getLevel()));
+        setPluginField(plugin, "isEnabled", true);
+
+        enabling = plugin;
+        try {
+            plugin.onEnable();
+        } finally {
+            enabling = null;
+        }
+    }
+
+    /** Calls {@code onDisable} and drops the plugin's tasks, like a server shutting down. */
+    public void disable(JavaPlugin plugin) {
+        try {
+            plugin.onDisable();
+        } finally {
+            scheduler.cancelTasks(plugin);
+            setPluginField(plugin, "isEnabled", false);
+        }
+    }
+
+    /** A command of the plugin, to call its {@code onCommand} with. */
+    public Command command(Plugin plugin, String name) {
+        return commands.computeIfAbsent(name, n -> newCommand(n, plugin));
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    private static void setPluginField(JavaPlugin plugin, String name, Object value) {
+        Reflect.set(JavaPlugin.class, plugin, name, value);
+    }
+
+    private static PluginCommand newCommand(String name, Plugin owner) {
+        try {
+            Constructor<PluginCommand> constructor = PluginCommand.class.getDeclaredConstructor(String.class, Plugin.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(name, owner);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create command " + name, e);
+        }
+    }
+
+    private static Logger logger(String name, Level level) {
+        Logger logger = Logger.getLogger("fake." + name);
+        logger.setUseParentHandlers(false);
+        logger.setLevel(level);
+        ConsoleHandler handler = new ConsoleHandler();
+        handler.setLevel(level);
+        handler.setFormatter(new Formatter() {
+            @Override
+            public String format(LogRecord record) {
+                String line = "[" + name + "] " + record.getLevel() + ": " + formatMessage(record) + System.lineSeparator();
+                if (record.getThrown() == null) return line;
+                StringWriter trace = new StringWriter();
+                record.getThrown().printStackTrace(new PrintWriter(trace));
+                return line + trace;
+            }
+        });
+        logger.addHandler(handler);
+        return logger;
+    }
+
+    // ======================= PROXY ======================= //
+
+    private Object invoke(Object self, Method m, Object[] a) {
+        switch (m.getName()) {
+            case "getName":
+                return "FakeServer";
+            case "getVersion":
+            case "getBukkitVersion":
+                return "fake";
+            case "getLogger":
+                return logger;
+            case "getScheduler":
+                return scheduler.scheduler();
+            case "getPluginManager":
+                return plugins.manager();
+            case "isPrimaryThread":
+                return Thread.currentThread() == mainThread;
+            case "getOnlinePlayers":
+                return onlineView;
+            case "getPlayer":
+                if (a[0] instanceof UUID id) {
+                    FakePlayer player = online.get(id);
+                    return player == null ? null : player.player();
+                }
+                break;
+            case "getPlayerExact":
+                for (FakePlayer player : online.values()) {
+                    if (player.name().equalsIgnoreCase((String) a[0])) return player.player();
+                }
+                return null;
+            case "getWorld":
+                if (a[0] instanceof String name) {
+                    FakeWorld world = worlds.get(name);
+                    return world == null ? null : world.world();
+                }
+                for (FakeWorld world : worlds.values()) {
+                    if (world.world().getUID().equals(a[0])) return world.world();
+                }
+                return null;
+            case "getWorlds": {
+                List<World> list = new ArrayList<>();
+                for (FakeWorld world : worlds.values()) list.add(world.world());
+                return list;
+            }
+            case "createBlockData":
+                if (a.length == 1 && a[0] instanceof Material material) return FakeBlockData.of(material);
+                if (a.length == 1 && a[0] instanceof String data) return FakeBlockData.parse(data);
+                break;
+            case "broadcastMessage":
+                broadcasts++;
+                logger.fine("Broadcast: " + a[0]);
+                return online.size();
+            case "getConsoleSender":
+                return console;
+            case "getPluginCommand": {
+                String name = (String) a[0];
+                name = name.substring(name.indexOf(':') + 1);
+                PluginCommand command = commands.get(name);
+                if (command == null && enabling != null) {
+                    command = newCommand(name, enabling);
+                    commands.put(name, command);
+                }
+                return command;
+            }
+            default:
+                break;
+        }
+        return FakeWorld.objectMethod(self, m, a, "Server");
+    }
+
+    /** Online players as the server hands them out: Bukkit players, in join order. */
+    private final class PlayersView extends AbstractCollection<Player> {
+
+        @Override
+        public Iterator<Player> iterator() {
+            Iterator<FakePlayer> it = online.values().iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public Player next() {
+                    return it.next().player();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return online.size();
+        }
+    }
+}
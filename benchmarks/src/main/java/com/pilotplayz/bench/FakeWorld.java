@@ -0,0 +1,267 @@
+package com.pilotplayz.bench;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory stand-in for the small part of the Bukkit {@link World} / {@link Chunk} /
+ * {@link Block} API the plugins touch. The Bukkit interfaces are implemented with dynamic
+ * proxies; any method that isn't handled here throws {@link UnsupportedOperationException}
+ * so a benchmark can't silently measure a no-op.
+ * <p>
+ * Blocks are stored like the server stores them: every chunk column is a stack of
+ * {@link PalettedSection}s, created on the first write to them. Block data is
+ * {@link FakeBlockData}, one instance per material.
+ */
+public final class FakeWorld {
+
+    private static final Material[] MATERIALS = FakeBlockData.MATERIALS;
+    private static final short AIR = (short) Material.AIR.ordinal();
+
+    public static final int MIN_HEIGHT = -64;
+    public static final int MAX_HEIGHT = 320;
+    private static final int SECTIONS = (MAX_HEIGHT - MIN_HEIGHT) >> 4;
+
+    private final String name;
+    private final UUID uid = UUID.randomUUID();
+    private final Map<Long, PalettedSection[]> columns = new HashMap<>();
+    private final World world;
+    private Location spawn;
+
+    public FakeWorld(String name) {
+        this.name = name;
+        this.world = proxy(World.class, this::invokeWorld);
+        this.spawn = new Location(world, 0.5, 64, 0.5);
+    }
+
+    /** The Bukkit view of this world. */
+    public World world() {
+        return world;
+    }
+
+    public void setSpawnLocation(double x, double y, double z) {
+        spawn = new Location(world, x, y, z);
+    }
+
+    public Material getType(int x, int y, int z) {
+        return MATERIALS[get(x, y, z)];
+    }
+
+    public void setType(int x, int y, int z, Material material) {
+        set(x, y, z, (short) material.ordinal());
+    }
+
+    /** Fills an inclusive box, bypassing the proxies. */
+    public void fill(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, Material material) {
+        short ordinal = (short) material.ordinal();
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int y = minY; y <= maxY; y++) {
+                    set(x, y, z, ordinal);
+                }
+            }
+        }
+    }
+
+    private short get(int x, int y, int z) {
+        if (y < MIN_HEIGHT || y >= MAX_HEIGHT) return AIR;
+        PalettedSection[] column = columns.get(chunkKey(x >> 4, z >> 4));
+        if (column == null) return AIR;
+        PalettedSection section = column[(y - MIN_HEIGHT) >> 4];
+        return section == null ? AIR : section.get(index(x, y, z));
+    }
+
+    private void set(int x, int y, int z, short ordinal) {
+        if (y < MIN_HEIGHT || y >= MAX_HEIGHT) return;
+        PalettedSection[] column = columns.computeIfAbsent(chunkKey(x >> 4, z >> 4), k -> new PalettedSection[SECTIONS]);
+        int s = (y - MIN_HEIGHT) >> 4;
+        if (column[s] == null) {
+            if (ordinal == AIR) return;
+            column[s] = new PalettedSection(AIR);
+        }
+        column[s].set(index(x, y, z), ordinal);
+    }
+
+    private static long chunkKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+
+    // Index inside the section
+    private static int index(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    // ======================= PROXIES ======================= //
+
+    private Object invokeWorld(Object self, Method m, Object[] a) {
+        switch (m.getName()) {
+            case "getName":
+                return name;
+            case "getUID":
+                return uid;
+            case "getMinHeight":
+                return MIN_HEIGHT;
+            case "getMaxHeight":
+                return MAX_HEIGHT;
+            case "getSpawnLocation":
+                return spawn.clone();
+            case "isChunkLoaded":
+                return true;
+            case "getBlockAt":
+                if (a.length == 3) {
+                    return block((int) a[0], (int) a[1], (int) a[2]);
+                }
+                Location loc = (Location) a[0];
+                return block(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+            case "getChunkAt":
+                if (a.length == 2 && a[0] instanceof Integer) {
+                    return chunk((int) a[0], (int) a[1]);
+                }
+                break;
+            case "getType":
+                if (a.length == 3) {
+                    return getType((int) a[0], (int) a[1], (int) a[2]);
+                }
+                break;
+            case "getBlockData":
+                if (a.length == 3) {
+                    return FakeBlockData.of(get((int) a[0], (int) a[1], (int) a[2]));
+                }
+                break;
+            case "setBlockData":
+                if (a.length == 4) {
+                    set((int) a[0], (int) a[1], (int) a[2], (short) ((BlockData) a[3]).getMaterial().ordinal());
+                    return null;
+                }
+                break;
+            default:
+                break;
+        }
+        return objectMethod(self, m, a, "World[" + name + "]");
+    }
+
+    Block block(int x, int y, int z) {
+        return proxy(Block.class, (self, m, a) -> {
+            switch (m.getName()) {
+                case "getType":
+                    return getType(x, y, z);
+                case "setType":
+                    setType(x, y, z, (Material) a[0]);
+                    return null;
+                case "getBlockData":
+                    return FakeBlockData.of(get(x, y, z));
+                case "setBlockData":
+                    set(x, y, z, (short) ((BlockData) a[0]).getMaterial().ordinal());
+                    return null;
+                case "isPassable":
+                case "isEmpty":
+                    return getType(x, y, z).isAir();
+                case "getX":
+                    return x;
+                case "getY":
+                    return y;
+                case "getZ":
+                    return z;
+                case "getWorld":
+                    return world;
+                case "getLocation":
+                    if (a == null || a.length == 0) {
+                        return new Location(world, x, y, z);
+                    }
+                    break;
+                case "getChunk":
+                    return chunk(x >> 4, z >> 4);
+                default:
+                    break;
+            }
+            return objectMethod(self, m, a, "Block[" + x + "," + y + "," + z + "]");
+        });
+    }
+
+    Chunk chunk(int cx, int cz) {
+        return proxy(Chunk.class, (self, m, a) -> {
+            switch (m.getName()) {
+                case "getX":
+                    return cx;
+                case "getZ":
+                    return cz;
+                case "getWorld":
+                    return world;
+                case "isLoaded":
+                case "load":
+                    return true;
+                case "getBlock":
+                    return block((cx << 4) | (int) a[0], (int) a[1], (cz << 4) | (int) a[2]);
+                case "getChunkSnapshot":
+                    return snapshot(cx, cz);
+                default:
+                    break;
+            }
+            return objectMethod(self, m, a, "Chunk[" + cx + "," + cz + "]");
+        });
+    }
+
+    private ChunkSnapshot snapshot(int cx, int cz) {
+        // A real snapshot copies the chunk's section palettes, so copy here as well
+        PalettedSection[] column = columns.get(chunkKey(cx, cz));
+        PalettedSection[] sections = new PalettedSection[SECTIONS];
+        for (int s = 0; column != null && s < SECTIONS; s++) {
+            if (column[s] != null) sections[s] = column[s].copy();
+        }
+        return proxy(ChunkSnapshot.class, (self, m, a) -> {
+            switch (m.getName()) {
+                case "getX":
+                    return cx;
+                case "getZ":
+                    return cz;
+                case "getWorldName":
+                    return name;
+                case "getBlockType":
+                    return MATERIALS[snapshotGet(sections, (int) a[0], (int) a[1], (int) a[2])];
+                case "getBlockData":
+                    return FakeBlockData.of(snapshotGet(sections, (int) a[0], (int) a[1], (int) a[2]));
+                default:
+                    break;
+            }
+            return objectMethod(self, m, a, "ChunkSnapshot[" + cx + "," + cz + "]");
+        });
+    }
+
+    private static short snapshotGet(PalettedSection[] sections, int x, int y, int z) {
+        if (y < MIN_HEIGHT || y >= MAX_HEIGHT) return AIR;
+        PalettedSection section = sections[(y - MIN_HEIGHT) >> 4];
+        return section == null ? AIR : section.get(index(x, y, z));
+    }
+
+    // ======================= HELPERS ======================= //
+
+    static Object objectMethod(Object self, Method m, Object[] a, String description) {
+        switch (m.getName()) {
+            case "equals":
+                return self == a[0];
+            case "hashCode":
+                return System.identityHashCode(self);
+            case "toString":
+                return description;
+            default:
+                throw new UnsupportedOperationException(description + "." + m.getName() + " is not simulated");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(FakeWorld.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
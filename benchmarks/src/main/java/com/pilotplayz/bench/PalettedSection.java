@@ -0,0 +1,125 @@
+package com.pilotplayz.bench;
+
+import java.util.Arrays;
+
+/**
+ * One 16 x 16 x 16 chunk section stored the way the server stores block states: indices into a
+ * small palette, packed into longs with as few bits as the palette needs (an entry never spans
+ * two longs). A section of a single material has no index array at all. Once a section holds
+ * more than 16 materials the palette is dropped and the material ordinals are stored directly,
+ * like the server falling back to its global palette.
+ */
+final class PalettedSection {
+
+    static final int BLOCKS = 16 * 16 * 16;
+
+    private static final int MAX_LIST_BITS = 4;
+    private static final int GLOBAL_BITS = 32 - Integer.numberOfLeadingZeros(FakeBlockData.MATERIALS.length - 1);
+
+    // Material ordinals by palette index; null once the section uses global ordinals
+    private short[] palette;
+    private int paletteSize;
+    private int bits;
+    private int perLong;
+    private long mask;
+    private long[] data;
+
+    /** A section filled with the material. */
+    PalettedSection(short ordinal) {
+        this.palette = new short[]{ordinal};
+        this.paletteSize = 1;
+    }
+
+    private PalettedSection(PalettedSection other) {
+        this.palette = other.palette == null ? null : other.palette.clone();
+        this.paletteSize = other.paletteSize;
+        this.bits = other.bits;
+        this.perLong = other.perLong;
+        this.mask = other.mask;
+        this.data = other.data == null ? null : other.data.clone();
+    }
+
+    /** @return the material ordinal at the section index ({@code y << 8 | z << 4 | x}) */
+    short get(int index) {
+        if (bits == 0) return palette[0];
+        int id = (int) ((data[index / perLong] >>> ((index % perLong) * bits)) & mask);
+        return palette == null ? (short) id : palette[id];
+    }
+
+    void set(int index, short ordinal) {
+        int id = idOf(ordinal);
+        if (bits == 0) {
+            if (id == 0) return;
+            resize(1);
+        }
+        int shift = (index % perLong) * bits;
+        int i = index / perLong;
+        data[i] = (data[i] & ~(mask << shift)) | ((long) id << shift);
+    }
+
+    /** Materials in the palette; 0 once the section stores global ordinals. */
+    int paletteSize() {
+        return palette == null ? 0 : paletteSize;
+    }
+
+    PalettedSection copy() {
+        return new PalettedSection(this);
+    }
+
+    /** @return the palette index of the material, adding it and growing the indices if needed */
+    private int idOf(short ordinal) {
+        if (palette == null) return ordinal;
+        for (int i = 0; i < paletteSize; i++) {
+            if (palette[i] == ordinal) return i;
+        }
+
+        int id = paletteSize;
+        int needed = 32 - Integer.numberOfLeadingZeros(id);
+        if (needed > MAX_LIST_BITS) {
+            toGlobal();
+            return ordinal;
+        }
+        if (id == palette.length) {
+            palette = Arrays.copyOf(palette, Math.min(1 << MAX_LIST_BITS, palette.length * 2));
+        }
+        palette[paletteSize++] = ordinal;
+        if (bits > 0 && needed > bits) {
+            resize(needed);
+        }
+        return id;
+    }
+
+    /** Repacks the indices with {@code newBits} bits each. */
+    private void resize(int newBits) {
+        int oldBits = bits, oldPerLong = perLong;
+        long oldMask = mask;
+        long[] old = data;
+
+        bits = newBits;
+        perLong = 64 / newBits;
+        mask = (1L << newBits) - 1;
+        data = new long[(BLOCKS + perLong - 1) / perLong];
+        if (oldBits == 0) return; // every index is 0
+
+        for (int index = 0; index < BLOCKS; index++) {
+            long id = (old[index / oldPerLong] >>> ((index % oldPerLong) * oldBits)) & oldMask;
+            data[index / perLong] |= id << ((index % perLong) * bits);
+        }
+    }
+
+    private void toGlobal() {
+        short[] ordinals = new short[BLOCKS];
+        for (int index = 0; index < BLOCKS; index++) {
+            ordinals[index] = get(index);
+        }
+        palette = null;
+        paletteSize = 0;
+        bits = GLOBAL_BITS;
+        perLong = 64 / bits;
+        mask = (1L << bits) - 1;
+        data = new long[(BLOCKS + perLong - 1) / perLong];
+        for (int index = 0; index < BLOCKS; index++) {
+            data[index / perLong] |= (long) ordinals[index] << ((index % perLong) * bits);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.pilotplayz.bench;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.damage.DamageSource;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Simulated players on a {@link FakeServer}. Every tick each online player, with the configured
+ * probability per tick:
+ * <ul>
+ *     <li>walks a step of a random walk, blocked by blocks that aren't air and kept within their
+ *     area while they are in it (a plugin may teleport them elsewhere);</li>
+ *     <li>hits a random player standing in the same chunk column, dying once their health is gone;</li>
+ *     <li>dies of something else;</li>
+ *     <li>quits, rejoining {@code rejoinTicks} later at a random spot in their area;</li>
+ * </ul>
+ * and then does whatever the scenario's {@link Action} adds. Everything goes through the real
+ * events, so the plugins see what they would see on a server.
+ */
+public final class PlayerDriver {
+
+    /** Probabilities per player and tick. */
+    public record Rates(double move, double damage, double death, double quit, int rejoinTicks) {
+    }
+
+    /** Scenario-specific behaviour of an online player, run after the standard actions each tick. */
+    @FunctionalInterface
+    public interface Action {
+        void act(FakePlayer player, Random random);
+    }
+
+    // Walking speed in blocks per tick
+    private static final double STRIDE = 0.22;
+    private static final double HIT_DAMAGE = 4.0;
+
+    private final FakeServer server;
+    private final FakeWorld world;
+    private final Rates rates;
+    private final Random random;
+    private final List<Walker> walkers = new ArrayList<>();
+    private final DamageSource damageSource;
+    private Action action = (player, random) -> { };
+
+    // Online players by chunk column, rebuilt every tick for picking whom to hit
+    private final Map<Long, List<FakePlayer>> byChunk = new HashMap<>();
+    private long tick;
+
+    private long moves, hits, blockedHits, deaths, quits;
+
+    public PlayerDriver(FakeServer server, FakeWorld world, Rates rates, long seed) {
+        this.server = server;
+        this.world = world;
+        this.rates = rates;
+        this.random = new Random(seed);
+        this.damageSource = FakeWorld.proxy(DamageSource.class, (self, m, a) -> switch (m.getName()) {
+            case "isIndirect", "scalesWithDifficulty" -> false;
+            case "getFoodExhaustion" -> 0.1f;
+            case "getCausingEntity", "getDirectEntity", "getDamageLocation", "getSourceLocation" -> null;
+            default -> FakeWorld.objectMethod(self, m, a, "DamageSource");
+        });
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    /**
+     * Adds a player who walks within the x/z rectangle at the given height, and joins them.
+     */
+    public FakePlayer add(String name, double minX, double minZ, double maxX, double maxZ, double y) {
+        Walker walker = new Walker(minX, minZ, maxX, maxZ, y);
+        walker.player = new FakePlayer(name, walker.randomSpot());
+        walkers.add(walker);
+        server.join(walker.player);
+        return walker.player;
+    }
+
+    public void tick() {
+        tick++;
+        byChunk.clear();
+        for (Walker walker : walkers) {
+            if (walker.online()) {
+                Location loc = walker.player.location();
+                byChunk.computeIfAbsent(chunkKey(loc), k -> new ArrayList<>(4)).add(walker.player);
+            }
+        }
+
+        for (Walker walker : walkers) {
+            FakePlayer player = walker.player;
+            if (!walker.online()) {
+                if (tick >= walker.rejoinAt) {
+                    player.setLocation(walker.randomSpot());
+                    player.setHealth(FakePlayer.MAX_HEALTH);
+                    server.join(player);
+                }
+                continue;
+            }
+            if (random.nextDouble() < rates.quit) {
+                quits++;
+                walker.rejoinAt = tick + rates.rejoinTicks;
+                server.quit(player);
+                continue;
+            }
+            if (random.nextDouble() < rates.move) {
+                walker.step();
+            }
+            if (random.nextDouble() < rates.damage) {
+                hitSomeone(player);
+            }
+            if (walker.online() && random.nextDouble() < rates.death) {
+                player.setKiller(null);
+                die(player);
+            }
+            if (walker.online()) {
+                action.act(player, random);
+            }
+        }
+    }
+
+    /** Counts of what the players did, for the report. */
+    public String summary() {
+        return "moves " + moves + ", hits " + hits + " (" + blockedHits + " cancelled), deaths " + deaths
+                + ", quits " + quits;
+    }
+
+    private void hitSomeone(FakePlayer attacker) {
+        List<FakePlayer> near = byChunk.get(chunkKey(attacker.location()));
+        if (near == null || near.size() < 2) return;
+        FakePlayer victim = near.get(random.nextInt(near.size()));
+        if (victim == attacker || victim.server() == null) return;
+
+        hits++;
+        EntityDamageByEntityEvent event = new EntityDamageByEntityEvent(attacker.player(), victim.player(),
+                EntityDamageEvent.DamageCause.ENTITY_ATTACK, damageSource, HIT_DAMAGE);
+        if (!server.callEvent(event)) {
+            blockedHits++;
+            return;
+        }
+        victim.setKiller(attacker);
+        victim.setHealth(victim.health() - event.getFinalDamage());
+        if (victim.health() <= 0) {
+            die(victim);
+        }
+    }
+
+    private void die(FakePlayer player) {
+        deaths++;
+        server.callEvent(new PlayerDeathEvent(player.player(), damageSource, new ArrayList<>(), 0, (String) null));
+        // Respawn at the world spawn right away
+        player.setHealth(FakePlayer.MAX_HEALTH);
+        player.player().teleport(world.world().getSpawnLocation());
+    }
+
+    private static long chunkKey(Location loc) {
+        return ((long) (loc.getBlockX() >> 4) << 32) | ((loc.getBlockZ() >> 4) & 0xFFFFFFFFL);
+    }
+
+    private final class Walker {
+
+        final double minX, minZ, maxX, maxZ, y;
+        FakePlayer player;
+        double heading = random.nextDouble() * Math.PI * 2;
+        long rejoinAt;
+
+        Walker(double minX, double minZ, double maxX, double maxZ, double y) {
+            this.minX = minX;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxZ = maxZ;
+            this.y = y;
+        }
+
+        boolean online() {
+            return player.server() != null;
+        }
+
+        Location randomSpot() {
+            return new Location(world.world(), minX + random.nextDouble() * (maxX - minX), y,
+                    minZ + random.nextDouble() * (maxZ - minZ));
+        }
+
+        void step() {
+            Location from = player.location();
+            World w = from.getWorld();
+            heading += (random.nextDouble() - 0.5) * 0.4;
+            double x = from.getX() + Math.cos(heading) * STRIDE;
+            double z = from.getZ() + Math.sin(heading) * STRIDE;
+            // Walls, glass and the edge of the area turn the player around
+            if ((inArea(from.getX(), from.getZ()) && !inArea(x, z)) || blocked(w, x, from.getY(), z)) {
+                heading += Math.PI;
+                return;
+            }
+            Location to = new Location(w, x, from.getY(), z, (float) Math.toDegrees(heading), 0f);
+            moves++;
+            PlayerMoveEvent event = new PlayerMoveEvent(player.player(), from.clone(), to);
+            if (server.callEvent(event)) {
+                player.setLocation(event.getTo());
+            }
+        }
+
+        private boolean inArea(double x, double z) {
+            return x >= minX && x <= maxX && z >= minZ && z <= maxZ;
+        }
+
+        private boolean blocked(World w, double x, double y, double z) {
+            if (w != world.world()) return false;
+            int bx = (int) Math.floor(x), by = (int) Math.floor(y), bz = (int) Math.floor(z);
+            return world.getType(bx, by, bz) != Material.AIR || world.getType(bx, by + 1, bz) != Material.AIR;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.pilotplayz.bench;
+
+import java.lang.reflect.Field;
+
+/**
+ * Reflection for setting up plugin objects outside a server. Setup code only; nothing here is
+ * meant to run inside a measurement.
+ */
+public final class Reflect {
+
+    private Reflect() {
+    }
+
+    /** An instance of the class without running any constructor or field initializer. */
+    public static <T> T allocate(Class<T> type) {
+        try {
+            Field f = sun.misc.Unsafe.class.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            return type.cast(((sun.misc.Unsafe) f.get(null)).allocateInstance(type));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not allocate " + type.getName(), e);
+        }
+    }
+
+    /** Sets a field declared by {@code owner}, final or not. */
+    public static void set(Class<?> owner, Object target, String field, Object value) {
+        try {
+            Field f = owner.getDeclaredField(field);
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not set " + owner.getSimpleName() + "." + field, e);
+        }
+    }
+
+    public static void set(Object target, String field, Object value) {
+        set(target.getClass(), target, field, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T get(Object target, String field) {
+        try {
+            Field f = target.getClass().getDeclaredField(field);
+            f.setAccessible(true);
+            return (T) f.get(target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not read " + target.getClass().getSimpleName() + "." + field, e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.pilotplayz.bench;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code --name value} (or {@code --name=value}) command line options of a simulation. Every
+ * option is read with its default, and {@link #checkAllUsed()} rejects typos afterwards.
+ */
+public final class SimOptions {
+
+    private final Map<String, String> values = new HashMap<>();
+    // Every option read so far with its value, for printing the run's settings
+    private final Map<String, String> used = new LinkedHashMap<>();
+
+    public SimOptions(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option, got '" + arg + "'");
+            }
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            } else if (i + 1 < args.length) {
+                values.put(arg.substring(2), args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+        }
+    }
+
+    public String string(String name, String def) {
+        String value = values.getOrDefault(name, def);
+        used.put(name, value);
+        return value;
+    }
+
+    public int integer(String name, int def) {
+        return Integer.parseInt(string(name, Integer.toString(def)));
+    }
+
+    public double decimal(String name, double def) {
+        return Double.parseDouble(string(name, Double.toString(def)));
+    }
+
+    public boolean flag(String name, boolean def) {
+        return Boolean.parseBoolean(string(name, Boolean.toString(def)));
+    }
+
+    /** @throws IllegalArgumentException if an option was given that nothing read */
+    public void checkAllUsed() {
+        for (String name : values.keySet()) {
+            if (!used.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option --" + name + "; options are " + used.keySet());
+            }
+        }
+    }
+
+    /** The settings of this run, one {@code name=value} per option. */
+    public String describe() {
+        StringBuilder out = new StringBuilder();
+        used.forEach((name, value) -> out.append(out.isEmpty() ? "" : " ").append(name).append('=').append(value));
+        return out.toString();
+    }
+}
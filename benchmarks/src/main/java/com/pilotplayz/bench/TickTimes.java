@@ -0,0 +1,52 @@
+package com.pilotplayz.bench;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Main-thread time of every measured tick of a simulation, reported as exact percentiles.
+ * A server has 50 ms per tick; ticks over that are counted separately.
+ */
+public final class TickTimes {
+
+    private static final long TICK_NANOS = 50_000_000L;
+
+    private long[] samples = new long[1024];
+    private int count;
+
+    public void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /** One line per statistic, in milliseconds. */
+    public String report() {
+        if (count == 0) return "no ticks measured";
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        long total = 0;
+        int over = 0;
+        for (long sample : sorted) {
+            total += sample;
+            if (sample > TICK_NANOS) over++;
+        }
+        return String.format(Locale.ROOT,
+                "ticks %d%n  mean  %8.3f ms%n  p50   %8.3f ms%n  p90   %8.3f ms%n  p99   %8.3f ms%n"
+                        + "  p99.9 %8.3f ms%n  max   %8.3f ms%n  over 50 ms: %d",
+                count, total / (double) count / 1e6,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.90) / 1e6, percentile(sorted, 0.99) / 1e6,
+                percentile(sorted, 0.999) / 1e6, sorted[count - 1] / 1e6, over);
+    }
+
+    // Nearest rank
+    private static long percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+}
@@ -0,0 +1,128 @@
+package com.pilotplayz.duelarenas;
+
+import com.pilotplayz.bench.FakeWorld;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arena membership test: {@link ArenaBounds#contains} against the old {@code Arena.isInside},
+ * which recomputed the box from its two corner locations and compared worlds with
+ * {@code equals} on every call. Half of the probe locations are inside the arena.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArenaBoundsBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"box", "sphere"})
+    public String shape;
+
+    private ArenaBounds bounds;
+    private Location[] probes;
+
+    // Old representation
+    private Location box1;
+    private Location box2;
+    private Location center;
+    private double radiusSquared;
+
+    @Setup
+    public void setup() {
+        World world = new FakeWorld("bench").world();
+        box1 = new Location(world, 100, 60, 100);
+        box2 = new Location(world, 120, 70, 120);
+        center = new Location(world, 110, 65, 110);
+        double radius = 10;
+        radiusSquared = radius * radius;
+
+        bounds = shape.equals("box")
+                ? ArenaBounds.box(box1, box2, 2)
+                : ArenaBounds.sphere(center, radius, List.of(center, center));
+        if (!shape.equals("box")) {
+            box1 = null;
+            box2 = null;
+        }
+
+        Random random = new Random(42L);
+        probes = new Location[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            // Even probes near the center, odd ones spread out around the arena
+            double spread = (i & 1) == 0 ? 6 : 40;
+            probes[i] = new Location(world,
+                    110 + (random.nextDouble() * 2 - 1) * spread,
+                    65 + (random.nextDouble() * 2 - 1) * spread / 4,
+                    110 + (random.nextDouble() * 2 - 1) * spread);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int bounds() {
+        int inside = 0;
+        for (Location loc : probes) {
+            if (bounds.contains(loc)) inside++;
+        }
+        return inside;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int legacy() {
+        int inside = 0;
+        for (Location loc : probes) {
+            if (legacyIsInside(loc)) inside++;
+        }
+        return inside;
+    }
+
+    // Arena.isInside before the bounds were precomputed
+    private boolean legacyIsInside(Location loc) {
+        if (loc == null || loc.getWorld() == null) return false;
+
+        boolean usingBox = box1 != null && box2 != null
+                && box1.getWorld() != null
+                && box1.getWorld().equals(box2.getWorld());
+        if (usingBox && loc.getWorld().equals(box1.getWorld())) {
+            double x = loc.getX();
+            double y = loc.getY();
+            double z = loc.getZ();
+
+            double minX = Math.min(box1.getX(), box2.getX());
+            double maxX = Math.max(box1.getX(), box2.getX());
+            double minY = Math.min(box1.getY(), box2.getY());
+            double maxY = Math.max(box1.getY(), box2.getY());
+            double minZ = Math.min(box1.getZ(), box2.getZ());
+            double maxZ = Math.max(box1.getZ(), box2.getZ());
+
+            return x >= minX && x <= maxX
+                    && y >= minY && y <= maxY
+                    && z >= minZ && z <= maxZ;
+        }
+
+        if (center == null || center.getWorld() == null || !center.getWorld().equals(loc.getWorld())) {
+            return false;
+        }
+        return loc.distanceSquared(center) <= radiusSquared;
+    }
+}
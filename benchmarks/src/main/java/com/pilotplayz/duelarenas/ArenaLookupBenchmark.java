@@ -0,0 +1,107 @@
+package com.pilotplayz.duelarenas;
+
+import com.pilotplayz.bench.FakeWorld;
+import com.pilotplayz.duelarenas.DuelArenasPlugin.Arena;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Arena#isInside} and {@link Arena#isGlassBlock} on a real box arena, {@code size} blocks
+ * wide and 16 high. With {@code glass=built} the whole enclosure is standing (walls and roof,
+ * so the glass count grows with the size squared); with {@code empty} no match is running.
+ * Half of the probes hit: inside the arena, or on one of its glass blocks.
+ * <p>
+ * The blocks are {@link FakeWorld} proxies, so {@code isGlassBlock} includes their dispatch
+ * cost; compare runs against each other, not against a server.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArenaLookupBenchmark {
+
+    private static final int PROBES = 1024;
+    private static final int HEIGHT = 16;
+
+    @Param({"16", "64", "128"})
+    public int size;
+
+    @Param({"empty", "built"})
+    public String glass;
+
+    private Arena arena;
+    private Location[] locations;
+    private Block[] blocks;
+
+    @Setup
+    public void setup() {
+        World world = new FakeWorld("bench").world();
+        DuelArenasPlugin plugin = BenchPlugin.create();
+        arena = BenchPlugin.addBoxArena(plugin, "bench", new ArenaMode(1, 2), world,
+                0, 64, 0, size - 1, 64 + HEIGHT - 1, size - 1);
+        if (glass.equals("built")) {
+            BenchPlugin.fillGlass(arena);
+        }
+        GlassShell shell = BenchPlugin.glassShell(arena);
+
+        Random random = new Random(42L);
+        locations = new Location[PROBES];
+        blocks = new Block[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            // Even probes inside the arena, odd ones anywhere within a size around it
+            boolean hit = (i & 1) == 0;
+            double spread = hit ? size - 1 : size * 3.0;
+            double offset = hit ? 0 : -size;
+            locations[i] = new Location(world,
+                    offset + random.nextDouble() * spread,
+                    64 + random.nextDouble() * (hit ? HEIGHT - 1 : HEIGHT * 3.0),
+                    offset + random.nextDouble() * spread);
+
+            if (hit) {
+                long key = shell.key((long) (random.nextDouble() * shell.size()));
+                blocks[i] = world.getBlockAt(BlockKeySet.unpackX(key), BlockKeySet.unpackY(key), BlockKeySet.unpackZ(key));
+            } else {
+                Location loc = locations[i];
+                blocks[i] = world.getBlockAt(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int isInside() {
+        int inside = 0;
+        for (Location loc : locations) {
+            if (arena.isInside(loc)) inside++;
+        }
+        return inside;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int isGlassBlock() {
+        int glassBlocks = 0;
+        for (Block block : blocks) {
+            if (arena.isGlassBlock(block)) glassBlocks++;
+        }
+        return glassBlocks;
+    }
+}
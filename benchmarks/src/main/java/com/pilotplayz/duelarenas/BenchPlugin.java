@@ -0,0 +1,93 @@
+package com.pilotplayz.duelarenas;
+
+import com.pilotplayz.bench.Reflect;
+import com.pilotplayz.common.PerfMetrics;
+import com.pilotplayz.duelarenas.DuelArenasPlugin.Arena;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * A {@link DuelArenasPlugin} that can exist outside a server, so benchmarks can build real
+ * {@link Arena}s and call the real event handlers.
+ * <p>
+ * {@code JavaPlugin}'s constructor refuses to run outside a plugin class loader, so the instance
+ * is allocated without running any constructor, and the fields the benchmarked handlers read
+ * are set up here the way their initializers would. Handlers that need anything else (config,
+ * stats, scheduler) are not usable on it.
+ */
+final class BenchPlugin {
+
+    private BenchPlugin() {
+    }
+
+    static DuelArenasPlugin create() {
+        DuelArenasPlugin plugin = Reflect.allocate(DuelArenasPlugin.class);
+        ArenaPool pool = new ArenaPool();
+        PerfMetrics perf = new PerfMetrics();
+        Reflect.set(plugin, "arenas", pool);
+        Reflect.set(plugin, "perf", perf);
+        Reflect.set(plugin, "moveProbe", perf.probe("onPlayerMove", null));
+        Reflect.set(plugin, "damageProbe", perf.probe("onDamage", null));
+        Reflect.set(plugin, "blockBreakProbe", perf.probe("onBlockBreak", null));
+        Reflect.set(plugin, "glassProbe", perf.probe("buildGlassBox", "blocks"));
+        Reflect.set(plugin, "activeArenas", new LinkedHashSet<>());
+        Reflect.set(plugin, "arenaIndex", new ArenaIndex());
+        Reflect.set(plugin, "combatStates", new HashMap<>());
+        Reflect.set(plugin, "pendingBoxCorner1", new HashMap<>());
+        Reflect.set(plugin, "pendingBoxCorner2", new HashMap<>());
+        // Replaced by onEnable when the plugin runs on a FakeServer
+        Reflect.set(plugin, "matchmaker", new Matchmaker(pool, id -> 1000, 100, 30, 3, 20));
+        return plugin;
+    }
+
+    /** A box arena between the corners, added to the plugin's pool and index. */
+    static Arena addBoxArena(DuelArenasPlugin plugin, String name, ArenaMode mode, World world,
+                             int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        Location box1 = new Location(world, minX, minY, minZ);
+        Location box2 = new Location(world, maxX, maxY, maxZ);
+        Location center = new Location(world, (minX + maxX) / 2.0, minY, (minZ + maxZ) / 2.0);
+        Arena arena = plugin.new Arena(plugin, name, mode, center, 0, List.of(), box1, box2);
+        Arena old = pool(plugin).replace(name, arena);
+        ArenaIndex index = Reflect.get(plugin, "arenaIndex");
+        if (old != null) index.remove(old);
+        index.add(arena);
+        return arena;
+    }
+
+    /**
+     * Marks the arena's whole enclosure as standing glass, as if {@code buildGlassBox} had run,
+     * without writing any block.
+     *
+     * @return glass blocks the arena now has
+     */
+    static int fillGlass(Arena arena) {
+        GlassShell shell = glassShell(arena);
+        BlockKeySet glass = Reflect.get(arena, "glassBlocks");
+        if (shell == null) return 0;
+        for (long i = 0; i < shell.size(); i++) {
+            glass.add(shell.key(i));
+        }
+        return glass.size();
+    }
+
+    /** @return the enclosure the arena would build, or null */
+    static GlassShell glassShell(Arena arena) {
+        return Reflect.get(arena, "glassShell");
+    }
+
+    static ArenaPool pool(DuelArenasPlugin plugin) {
+        return Reflect.get(plugin, "arenas");
+    }
+
+    static Matchmaker matchmaker(DuelArenasPlugin plugin) {
+        return Reflect.get(plugin, "matchmaker");
+    }
+
+    static PerfMetrics perf(DuelArenasPlugin plugin) {
+        return Reflect.get(plugin, "perf");
+    }
+}
@@ -0,0 +1,139 @@
+package com.pilotplayz.duelarenas;
+
+import com.pilotplayz.bench.FakePlayer;
+import com.pilotplayz.bench.FakeServer;
+import com.pilotplayz.bench.FakeWorld;
+import com.pilotplayz.bench.PlayerDriver;
+import com.pilotplayz.bench.SimOptions;
+import com.pilotplayz.bench.TickTimes;
+import org.bukkit.Material;
+import org.bukkit.command.Command;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+import java.util.logging.Level;
+
+/**
+ * A duel lobby full of players on a {@link FakeServer}: they walk around, hit and kill each
+ * other, quit and rejoin, and queue for 1v1 and 2v2 matches that the real plugin builds arenas
+ * for, fights out and tears down again. Prints the percentiles of the plugin's time per tick.
+ * <p>
+ * Options ({@code --name value}): players, arenas, arena-size, lobby-size, ticks, warmup, move,
+ * damage, death, quit, queue (rates per player and tick), rejoin-ticks, seed, metrics (print
+ * {@code /duelstats perf} at the end) and log-level.
+ */
+public final class DuelLobbySimulation {
+
+    private static final int FLOOR_Y = 63;
+    private static final int ARENA_HEIGHT = 8;
+    // Space between the lobby and the row of arenas, and between arenas
+    private static final int GAP = 16;
+
+    private DuelLobbySimulation() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        SimOptions options = new SimOptions(args);
+        int players = options.integer("players", 300);
+        int arenaCount = options.integer("arenas", 16);
+        int arenaSize = options.integer("arena-size", 24);
+        int lobbySize = options.integer("lobby-size", 64);
+        int ticks = options.integer("ticks", 6000);
+        int warmup = options.integer("warmup", 200);
+        PlayerDriver.Rates rates = new PlayerDriver.Rates(
+                options.decimal("move", 0.8),
+                options.decimal("damage", 0.02),
+                options.decimal("death", 0.0005),
+                options.decimal("quit", 0.0002),
+                options.integer("rejoin-ticks", 200));
+        double queueRate = options.decimal("queue", 0.002);
+        long seed = options.integer("seed", 42);
+        boolean metrics = options.flag("metrics", false);
+        Level logLevel = Level.parse(options.string("log-level", "WARNING"));
+        options.checkAllUsed();
+
+        FakeServer server = FakeServer.install(logLevel);
+        FakeWorld world = server.createWorld("world");
+        world.fill(0, FLOOR_Y, 0, lobbySize - 1, FLOOR_Y, lobbySize - 1, Material.STONE);
+        world.setSpawnLocation(lobbySize / 2.0, FLOOR_Y + 1, lobbySize / 2.0);
+
+        YamlConfiguration config = new YamlConfiguration();
+        ConfigurationSection arenas = config.createSection("arenas");
+        for (int i = 0; i < arenaCount; i++) {
+            int minX = i * (arenaSize + GAP);
+            int minZ = lobbySize + GAP;
+            int maxX = minX + arenaSize - 1;
+            int maxZ = minZ + arenaSize - 1;
+            world.fill(minX, FLOOR_Y, minZ, maxX, FLOOR_Y, maxZ, Material.STONE);
+
+            // Every fourth arena is a 2v2 one
+            ArenaConfig arena = new ArenaConfig("arena" + (i + 1), i % 4 == 3 ? 2 : 1, 2);
+            arena.box1 = new ArenaConfig.Point("world", minX, FLOOR_Y, minZ, 0f, 0f);
+            arena.box2 = new ArenaConfig.Point("world", maxX, FLOOR_Y + ARENA_HEIGHT, maxZ, 0f, 0f);
+            arena.write(arenas.createSection(arena.name));
+        }
+        config.set("metrics.enabled", metrics);
+        config.set("metrics.csv-interval-seconds", 0);
+
+        DuelArenasPlugin plugin = BenchPlugin.create();
+        server.enable(plugin, "DuelArenas", config.saveToString());
+        MatchCounter matches = new MatchCounter();
+        server.server().getPluginManager().registerEvents(matches, plugin);
+
+        PlayerDriver driver = new PlayerDriver(server, world, rates, seed);
+        Command queue = server.command(plugin, "queue");
+        driver.setAction((player, random) -> {
+            if (random.nextDouble() >= queueRate) return;
+            String mode = random.nextInt(4) == 0 ? "2v2" : "1v1";
+            plugin.onCommand(player.player(), queue, "queue", new String[]{mode});
+        });
+        for (int i = 0; i < players; i++) {
+            driver.add("player" + i, 1, 1, lobbySize - 1, lobbySize - 1, FLOOR_Y + 1);
+        }
+
+        TickTimes times = new TickTimes();
+        for (int tick = 0; tick < warmup + ticks; tick++) {
+            driver.tick();
+            server.tick();
+            long busy = server.takeBusyNanos();
+            if (tick >= warmup) {
+                times.record(busy);
+            }
+        }
+
+        System.out.println("Duel lobby: " + options.describe());
+        System.out.println(times.report());
+        System.out.println(driver.summary() + ", fights started " + matches.fights
+                + ", messages " + messages(server));
+        if (metrics) {
+            for (String line : BenchPlugin.perf(plugin).report()) {
+                System.out.println(line);
+            }
+        }
+
+        server.disable(plugin);
+        server.shutdown();
+    }
+
+    private static long messages(FakeServer server) {
+        long total = 0;
+        for (FakePlayer player : server.players()) {
+            total += player.messages();
+        }
+        return total;
+    }
+
+    /** Counts matches that got as far as fighting. */
+    public static final class MatchCounter implements Listener {
+
+        long fights;
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onStateChange(ArenaStateChangeEvent event) {
+            if (event.getTo() == ArenaState.FIGHTING) fights++;
+        }
+    }
+}
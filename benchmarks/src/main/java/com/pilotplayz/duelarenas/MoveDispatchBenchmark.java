@@ -0,0 +1,101 @@
+package com.pilotplayz.duelarenas;
+
+import com.pilotplayz.bench.FakePlayer;
+import com.pilotplayz.bench.FakeWorld;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One tick of player movement through {@link DuelArenasPlugin#onPlayerMove}: every player
+ * fires one move event. The lobby holds 8 box arenas of {@code size} blocks in a 4 x 2 grid,
+ * one size apart, and players random-walk across all of it at walking speed, so most moves stay
+ * inside a block, some cross the chunk grid, and a few walk into or out of an arena and queue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MoveDispatchBenchmark {
+
+    private static final int ARENAS = 8;
+    private static final int STEPS = 512;
+    // Blocks per move; a walking player moves about this far per tick
+    private static final double STRIDE = 0.22;
+
+    @Param({"16", "64"})
+    public int size;
+
+    @Param({"1", "100", "300"})
+    public int players;
+
+    private DuelArenasPlugin plugin;
+    private FakePlayer[] walkers;
+    // Precomputed walk of every player, looped
+    private Location[][] paths;
+    private int step;
+
+    @Setup
+    public void setup() {
+        World world = new FakeWorld("bench").world();
+        plugin = BenchPlugin.create();
+        for (int i = 0; i < ARENAS; i++) {
+            int x = (i % 4) * 2 * size;
+            int z = (i / 4) * 2 * size;
+            BenchPlugin.addBoxArena(plugin, "arena" + i, new ArenaMode(1, 2), world,
+                    x, 64, z, x + size - 1, 79, z + size - 1);
+        }
+
+        // The grid plus a size of margin around it
+        double minX = -size, maxX = 8.0 * size, minZ = -size, maxZ = 4.0 * size;
+        Random random = new Random(42L);
+        walkers = new FakePlayer[players];
+        paths = new Location[players][STEPS];
+        for (int p = 0; p < players; p++) {
+            double x = minX + random.nextDouble() * (maxX - minX);
+            double z = minZ + random.nextDouble() * (maxZ - minZ);
+            double heading = random.nextDouble() * Math.PI * 2;
+            for (int s = 0; s < STEPS; s++) {
+                heading += (random.nextDouble() - 0.5) * 0.4;
+                x = Math.clamp(x + Math.cos(heading) * STRIDE, minX, maxX);
+                z = Math.clamp(z + Math.sin(heading) * STRIDE, minZ, maxZ);
+                paths[p][s] = new Location(world, x, 65, z, (float) Math.toDegrees(heading), 0);
+            }
+            walkers[p] = new FakePlayer("walker" + p, paths[p][0]);
+        }
+    }
+
+    @Benchmark
+    public int tick() {
+        int from = step;
+        int to = (step + 1) % STEPS;
+        step = to;
+
+        int moved = 0;
+        for (int p = 0; p < walkers.length; p++) {
+            // The server hands every listener its own copies
+            PlayerMoveEvent event = new PlayerMoveEvent(walkers[p].player(),
+                    paths[p][from].clone(), paths[p][to].clone());
+            plugin.onPlayerMove(event);
+            walkers[p].setLocation(paths[p][to]);
+            moved++;
+        }
+        return moved;
+    }
+}
@@ -0,0 +1,30 @@
+package com.pilotplayz.wintermine;
+
+import com.pilotplayz.bench.Reflect;
+import com.pilotplayz.common.PerfMetrics;
+
+/**
+ * A {@link Wintermine} that can be enabled on a {@code FakeServer}.
+ * <p>
+ * {@code JavaPlugin}'s constructor refuses to run outside a plugin class loader, so the instance
+ * is allocated without running any constructor, and the fields with initializers are set up here
+ * the way those initializers would. Everything else is left to {@code onEnable}.
+ */
+final class BenchPlugin {
+
+    private BenchPlugin() {
+    }
+
+    static Wintermine create() {
+        Wintermine plugin = Reflect.allocate(Wintermine.class);
+        PerfMetrics perf = new PerfMetrics();
+        Reflect.set(plugin, "perf", perf);
+        Reflect.set(plugin, "resetProbe", perf.probe("resetMine", "blocks"));
+        Reflect.set(plugin, "blockBreakProbe", perf.probe("onBlockBreak", null));
+        return plugin;
+    }
+
+    static PerfMetrics perf(Wintermine plugin) {
+        return Reflect.get(plugin, "perf");
+    }
+}
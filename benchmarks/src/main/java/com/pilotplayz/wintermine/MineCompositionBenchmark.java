@@ -0,0 +1,117 @@
+package com.pilotplayz.wintermine;
+
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of picking one block material: the alias-method {@link MineComposition} with
+ * {@link MineRandom}, against a single-material core and a cumulative-weight scan driven by
+ * {@link java.util.Random}. Run with {@code -prof gc} to confirm the pick allocates nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MineCompositionBenchmark {
+
+    private static final int PICKS = 1024;
+
+    @Param({"2", "3", "8", "32"})
+    public int materials;
+
+    private MineComposition single;
+    private MineComposition mix;
+    private MineRandom random;
+
+    // Baseline: cumulative weights and a linear scan
+    private Material[] scanMaterials;
+    private double[] cumulative;
+    private Random jdkRandom;
+
+    @Setup
+    public void setup() {
+        // A few typical mine blocks, topped up with any other blocks for the larger mixes
+        List<Material> pool = new ArrayList<>(List.of(
+                Material.SNOW_BLOCK, Material.PACKED_ICE, Material.BLUE_ICE, Material.ICE,
+                Material.STONE, Material.COAL_ORE, Material.IRON_ORE, Material.GOLD_ORE));
+        for (Material m : Material.values()) {
+            if (pool.size() >= materials) break;
+            if (m.isBlock() && !m.isAir() && !pool.contains(m)) {
+                pool.add(m);
+            }
+        }
+
+        Map<Material, Double> weights = new LinkedHashMap<>();
+        Random seeded = new Random(1);
+        for (int i = 0; i < materials; i++) {
+            weights.put(pool.get(i), 1.0 + seeded.nextInt(100));
+        }
+
+        single = MineComposition.of(Material.SNOW_BLOCK);
+        mix = MineComposition.weighted(weights);
+        random = new MineRandom(42L);
+
+        scanMaterials = weights.keySet().toArray(new Material[0]);
+        cumulative = new double[scanMaterials.length];
+        double total = 0;
+        int i = 0;
+        for (double w : weights.values()) {
+            total += w;
+            cumulative[i++] = total;
+        }
+        for (i = 0; i < cumulative.length; i++) {
+            cumulative[i] /= total;
+        }
+        jdkRandom = new Random(42L);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PICKS)
+    public void singleMaterial(Blackhole bh) {
+        for (int i = 0; i < PICKS; i++) {
+            bh.consume(single.pick(random));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PICKS)
+    public void aliasTable(Blackhole bh) {
+        for (int i = 0; i < PICKS; i++) {
+            bh.consume(mix.pick(random));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PICKS)
+    public void cumulativeScan(Blackhole bh) {
+        for (int i = 0; i < PICKS; i++) {
+            double r = jdkRandom.nextDouble();
+            int m = 0;
+            while (m < cumulative.length - 1 && r >= cumulative[m]) {
+                m++;
+            }
+            bh.consume(scanMaterials[m]);
+        }
+    }
+}
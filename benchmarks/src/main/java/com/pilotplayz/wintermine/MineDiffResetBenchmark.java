@@ -0,0 +1,84 @@
+package com.pilotplayz.wintermine;
+
+import com.pilotplayz.bench.FakeWorld;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reset of a partly mined region: a full sweep with the section writer versus a diff reset
+ * that only rewrites the blocks recorded by {@link MineDirtyTracker}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MineDiffResetBenchmark {
+
+    @Param({"500000", "5000000"})
+    public int volume;
+
+    /** Fraction of the region mined out before each reset. */
+    @Param({"0.01", "0.05", "0.25"})
+    public double mined;
+
+    @Param({"full", "diff"})
+    public String mode;
+
+    private FakeWorld world;
+    private MineRegion region;
+    private MineLayout layout;
+    private MineDirtyTracker tracker;
+
+    @Setup(Level.Trial)
+    public void createWorld() {
+        world = new FakeWorld("bench");
+        int side = (int) Math.round(Math.cbrt(volume));
+        region = new MineRegion(world.world(), 0, 0, 0, side - 1, side - 1, side - 1);
+        layout = MineLayout.defaults(region);
+        tracker = new MineDirtyTracker(region);
+
+        // First take() is always a full sweep; after it the tracker knows the region is clean
+        new MineResetJob(layout, MineBlockWriter.create("section"), tracker.take(1.0), 42L, job -> { }).run(Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    @Setup(Level.Invocation)
+    public void mineBlocks() {
+        SplittableRandom random = new SplittableRandom(42);
+        long count = (long) (region.volume() * mined);
+        int sx = region.maxX - region.minX + 1;
+        int sy = region.maxY - region.minY + 1;
+        int sz = region.maxZ - region.minZ + 1;
+        for (long i = 0; i < count; i++) {
+            int x = region.minX + random.nextInt(sx);
+            int y = region.minY + random.nextInt(sy);
+            int z = region.minZ + random.nextInt(sz);
+            world.setType(x, y, z, Material.AIR);
+            tracker.mark(world.world(), x, y, z);
+        }
+    }
+
+    @Benchmark
+    public long reset() {
+        MineDirtyTracker.Dirty dirty = tracker.take(mode.equals("full") ? -1.0 : 1.0);
+        MineBlockWriter writer = dirty != null ? new MineBlockWriter.BukkitWriter() : MineBlockWriter.create("section");
+        MineResetJob job = new MineResetJob(layout, writer, dirty, 42L, j -> { });
+        job.run(Long.MAX_VALUE, Long.MAX_VALUE);
+        return job.blocksChanged();
+    }
+}
@@ -0,0 +1,82 @@
+package com.pilotplayz.wintermine;
+
+import com.pilotplayz.bench.FakeWorld;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full reset of a cube-shaped mine with each {@link MineBlockWriter}.
+ * <p>
+ * {@code dirty} starts every invocation from a region full of stone, so every block has to be
+ * written; {@code clean} resets a region that already matches the layout, which is what the
+ * section writer is able to skip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MineResetBenchmark {
+
+    @Param({"50000", "500000", "5000000"})
+    public int volume;
+
+    @Param({"bukkit", "section"})
+    public String writer;
+
+    @Param({"dirty", "clean"})
+    public String state;
+
+    /** Plain snow core, or a 60/25/15 weighted mix sampled per block. */
+    @Param({"single", "mix"})
+    public String core;
+
+    private FakeWorld world;
+    private MineRegion region;
+    private MineLayout layout;
+
+    @Setup(Level.Trial)
+    public void createWorld() {
+        world = new FakeWorld("bench");
+        int side = (int) Math.round(Math.cbrt(volume));
+        region = new MineRegion(world.world(), 0, 0, 0, side - 1, side - 1, side - 1);
+        MineComposition composition = core.equals("mix")
+                ? MineComposition.weighted(Map.of(Material.SNOW_BLOCK, 60.0, Material.PACKED_ICE, 25.0, Material.BLUE_ICE, 15.0))
+                : MineComposition.of(Material.SNOW_BLOCK);
+        layout = MineLayout.build(region, Material.BEDROCK, MineLayout.DEFAULT_GAP_WIDTH, Material.AIR, composition, List.of());
+
+        if (state.equals("clean")) {
+            new MineResetJob(layout, MineBlockWriter.create("bukkit"), null, 42L, job -> { }).run(Long.MAX_VALUE, Long.MAX_VALUE);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void dirtyRegion() {
+        if (state.equals("dirty")) {
+            world.fill(region.minX, region.minY, region.minZ, region.maxX, region.maxY, region.maxZ, Material.STONE);
+        }
+    }
+
+    @Benchmark
+    public long reset() {
+        MineResetJob job = new MineResetJob(layout, MineBlockWriter.create(writer), null, 42L, j -> { });
+        job.run(Long.MAX_VALUE, Long.MAX_VALUE);
+        return job.blocksChanged();
+    }
+}
@@ -0,0 +1,176 @@
+package com.pilotplayz.wintermine;
+
+import com.pilotplayz.bench.FakePlayer;
+import com.pilotplayz.bench.FakeServer;
+import com.pilotplayz.bench.FakeWorld;
+import com.pilotplayz.bench.PlayerDriver;
+import com.pilotplayz.bench.SimOptions;
+import com.pilotplayz.bench.TickTimes;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.command.Command;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+
+import java.util.logging.Level;
+
+/**
+ * A grid of mines on a {@link FakeServer} with players digging down through them, and every
+ * mine reset at once with {@code /resetmine all} at a fixed interval, which also moves the
+ * players back out on top. Prints the percentiles of the plugin's time per tick.
+ * <p>
+ * Options ({@code --name value}): mines, mine-size, mine-height, players (per mine), ticks,
+ * warmup, reset-every (ticks), move, mine (block breaks per player and tick), quit,
+ * rejoin-ticks, core ({@code single} or {@code mix}), writer ({@code section} or
+ * {@code bukkit}), seed, metrics (print {@code /mine perf} at the end) and log-level.
+ */
+public final class MineResetSimulation {
+
+    private static final int FLOOR_Y = 32;
+    // Space between mines
+    private static final int GAP = 8;
+
+    private MineResetSimulation() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        SimOptions options = new SimOptions(args);
+        int mineCount = options.integer("mines", 30);
+        int mineSize = options.integer("mine-size", 24);
+        int mineHeight = options.integer("mine-height", 24);
+        int playersPerMine = options.integer("players", 2);
+        int ticks = options.integer("ticks", 6000);
+        int warmup = options.integer("warmup", 200);
+        int resetEvery = options.integer("reset-every", 600);
+        PlayerDriver.Rates rates = new PlayerDriver.Rates(
+                options.decimal("move", 0.5),
+                0, 0,
+                options.decimal("quit", 0.0002),
+                options.integer("rejoin-ticks", 200));
+        double mineRate = options.decimal("mine", 0.25);
+        String core = options.string("core", "mix");
+        String writer = options.string("writer", "section");
+        long seed = options.integer("seed", 42);
+        boolean metrics = options.flag("metrics", false);
+        Level logLevel = Level.parse(options.string("log-level", "WARNING"));
+        options.checkAllUsed();
+
+        FakeServer server = FakeServer.install(logLevel);
+        FakeWorld world = server.createWorld("world");
+        world.setSpawnLocation(0, FLOOR_Y + mineHeight + 1, -GAP);
+
+        YamlConfiguration config = new YamlConfiguration();
+        int columns = (int) Math.ceil(Math.sqrt(mineCount));
+        int[][] bounds = new int[mineCount][];
+        for (int i = 0; i < mineCount; i++) {
+            int minX = (i % columns) * (mineSize + GAP);
+            int minZ = (i / columns) * (mineSize + GAP);
+            bounds[i] = new int[]{minX, minZ, minX + mineSize - 1, minZ + mineSize - 1};
+            String path = "mines.mine" + (i + 1);
+            config.set(path + ".world", "world");
+            config.set(path + ".pos1.x", minX);
+            config.set(path + ".pos1.y", FLOOR_Y);
+            config.set(path + ".pos1.z", minZ);
+            config.set(path + ".pos2.x", minX + mineSize - 1);
+            config.set(path + ".pos2.y", FLOOR_Y + mineHeight - 1);
+            config.set(path + ".pos2.z", minZ + mineSize - 1);
+        }
+        config.set("layout.wall", "BEDROCK");
+        config.set("layout.gap-width", 1);
+        config.set("layout.gap", "AIR");
+        if (core.equals("mix")) {
+            config.set("layout.core.SNOW_BLOCK", 60);
+            config.set("layout.core.PACKED_ICE", 25);
+            config.set("layout.core.BLUE_ICE", 15);
+        } else {
+            config.set("layout.core", "SNOW_BLOCK");
+        }
+        // Only the resets of this scenario, none on a timer or on their own
+        config.set("auto-reset-minutes", 1_000_000);
+        config.set("reset.remaining-threshold", 0.0);
+        config.set("reset.writer", writer);
+        config.set("metrics.enabled", metrics);
+        config.set("metrics.csv-interval-seconds", 0);
+
+        Wintermine plugin = BenchPlugin.create();
+        server.enable(plugin, "Wintermine", config.saveToString());
+        Command resetMine = server.command(plugin, "resetmine");
+        String[] all = {"all"};
+        // Mines start out empty; fill them before any player arrives
+        plugin.onCommand(server.console(), resetMine, "resetmine", all);
+        while (server.currentTick() < 20) {
+            server.tick();
+        }
+
+        PlayerDriver driver = new PlayerDriver(server, world, rates, seed);
+        Digger digger = new Digger(server, world);
+        driver.setAction((player, random) -> {
+            if (random.nextDouble() < mineRate) digger.dig(player);
+        });
+        double top = FLOOR_Y + mineHeight;
+        for (int i = 0; i < mineCount; i++) {
+            int[] b = bounds[i];
+            for (int p = 0; p < playersPerMine; p++) {
+                driver.add("miner" + i + "_" + p, b[0] + 2, b[1] + 2, b[2] - 1, b[3] - 1, top);
+            }
+        }
+
+        TickTimes times = new TickTimes();
+        for (int tick = 0; tick < warmup + ticks; tick++) {
+            if (tick > 0 && tick % resetEvery == 0) {
+                plugin.onCommand(server.console(), resetMine, "resetmine", all);
+            }
+            driver.tick();
+            server.tick();
+            long busy = server.takeBusyNanos();
+            if (tick >= warmup) {
+                times.record(busy);
+            }
+        }
+
+        System.out.println("Mine resets: " + options.describe());
+        System.out.println(times.report());
+        System.out.println(driver.summary() + ", blocks broken " + digger.broken);
+        if (metrics) {
+            for (String line : BenchPlugin.perf(plugin).report()) {
+                System.out.println(line);
+            }
+        }
+
+        server.disable(plugin);
+        server.shutdown();
+    }
+
+    /** Breaks the block under a player's feet and lets them drop into the hole. */
+    private static final class Digger {
+
+        private final FakeServer server;
+        private final FakeWorld world;
+        long broken;
+
+        Digger(FakeServer server, FakeWorld world) {
+            this.server = server;
+            this.world = world;
+        }
+
+        void dig(FakePlayer player) {
+            Location from = player.location();
+            int x = from.getBlockX(), y = from.getBlockY() - 1, z = from.getBlockZ();
+            Material type = world.getType(x, y, z);
+            if (type == Material.AIR || type == Material.BEDROCK) return;
+
+            BlockBreakEvent event = new BlockBreakEvent(world.world().getBlockAt(x, y, z), player.player());
+            if (!server.callEvent(event)) return;
+            world.setType(x, y, z, Material.AIR);
+            broken++;
+
+            // Falls into the hole, as a move like any other
+            Location to = from.clone();
+            to.setY(y);
+            if (server.callEvent(new PlayerMoveEvent(player.player(), from, to))) {
+                player.setLocation(to);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.pilotplayz.common;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the plugin's file and database work on virtual threads, so persisting anything costs
+ * the main thread no more than handing the work over.
+ * <p>
+ * Work goes through a {@link Lane}: tasks on one lane run one at a time in the order they were
+ * submitted, so writes to the same file or connection never overtake each other, while lanes
+ * run independently of one another. Every submit returns a future of the task's outcome;
+ * a task that throws completes its future exceptionally and is logged. {@link #drain} waits
+ * for everything submitted so far and is the last thing onDisable does.
+ */
+public final class AsyncIo {
+
+    @FunctionalInterface
+    public interface Task<T> {
+        T call() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private final Logger log;
+    private final ExecutorService executor;
+    private final List<Lane> lanes = new CopyOnWriteArrayList<>();
+
+    public AsyncIo(String name, Logger log) {
+        this.log = log;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-IO-", 0).factory());
+    }
+
+    /** @param name shown when one of its tasks fails */
+    public Lane lane(String name) {
+        Lane lane = new Lane(name);
+        lanes.add(lane);
+        return lane;
+    }
+
+    /**
+     * Waits until every task submitted so far has run, then stops taking new ones.
+     *
+     * @return false if that took longer than the timeout; what is still running is abandoned
+     */
+    public boolean drain(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            for (Lane lane : lanes) {
+                lane.tail().handle((result, error) -> null).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+            executor.shutdown();
+            return executor.awaitTermination(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warning("Disk writes did not finish within " + unit.toSeconds(timeout) + " seconds.");
+            executor.shutdown();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            // Can't happen: failures were turned into null above
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Tasks submitted to one lane run one at a time, in submission order. */
+    public final class Lane {
+
+        private final String name;
+        private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+
+        private Lane(String name) {
+            this.name = name;
+        }
+
+        /** Queues the task behind everything submitted to this lane before it. */
+        public synchronized <T> CompletableFuture<T> submit(Task<T> task) {
+            CompletableFuture<T> future;
+            try {
+                // A failed task must not stop the ones queued behind it
+                future = tail.handle((result, error) -> null).thenApplyAsync(ignored -> {
+                    try {
+                        return task.call();
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor);
+            } catch (RejectedExecutionException e) {
+                log.warning("Dropped " + name + " work submitted after the plugin stopped its I/O.");
+                return CompletableFuture.failedFuture(e);
+            }
+            future.whenComplete((result, error) -> {
+                if (error != null) {
+                    log.log(Level.WARNING, "Background " + name + " work failed.",
+                            error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                }
+            });
+            tail = future;
+            return future;
+        }
+
+        public CompletableFuture<Void> run(Action action) {
+            return submit(() -> {
+                action.run();
+                return null;
+            });
+        }
+
+        private synchronized CompletableFuture<?> tail() {
+            return tail;
+        }
+    }
+}
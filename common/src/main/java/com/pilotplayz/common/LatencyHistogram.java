@@ -0,0 +1,80 @@
+package com.pilotplayz.common;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of non-negative values, in the style of HdrHistogram: every power of two
+ * is split into 16 equal buckets, so a value is reported within about 6% of what was recorded,
+ * from single nanoseconds up to hours, in a fixed array of counters. Recording is a few bit
+ * operations and an array increment and never allocates. Not thread-safe.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    // Values below SUB_BUCKETS get a bucket each; above, 16 buckets per power of two up to 2^63
+    private final long[] counts = new long[(64 - SUB_BITS) * SUB_BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    void record(long value) {
+        if (value < 0) value = 0;
+        counts[index(value)]++;
+        count++;
+        sum += value;
+        if (value > max) max = value;
+    }
+
+    long count() {
+        return count;
+    }
+
+    long max() {
+        return max;
+    }
+
+    long mean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * @param quantile between 0 and 1, e.g. 0.99
+     * @return the highest value of the bucket the quantile falls in, at most {@link #max()}
+     */
+    long percentile(double quantile) {
+        if (count == 0) return 0;
+        long rank = Math.max(1L, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestInBucket(i), max);
+            }
+        }
+        return max;
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0L);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long highestInBucket(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        if (shift >= 63 - SUB_BITS) return Long.MAX_VALUE;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,179 @@
+package com.pilotplayz.common;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Timings of the plugin's hot paths, for finding out what they cost without a profiler.
+ * <p>
+ * Each path has a {@link Probe}. A handler takes {@link #start()} on entry and hands it to its
+ * probe on exit; the probe records the time in a {@link LatencyHistogram} and counts events,
+ * fast-path exits and units of work such as blocks. Nothing allocates, and while the metrics
+ * are off {@code start()} is a field read and the probe a compare, without reading the clock.
+ * <p>
+ * Every {@code csv-interval-seconds} one row per probe is appended to a CSV file on the I/O lane
+ * and a new window starts. Main thread only.
+ */
+public final class PerfMetrics {
+
+    /** What {@link #start()} returns while the metrics are off. */
+    public static final long OFF = Long.MIN_VALUE;
+
+    private static final String CSV_HEADER =
+            "time,probe,events,fast_exits,units,mean_ns,p50_ns,p90_ns,p99_ns,max_ns\n";
+
+    private final Map<String, Probe> probes = new LinkedHashMap<>();
+    private boolean enabled;
+    private long windowStart = System.currentTimeMillis();
+    private BukkitTask csvTask;
+
+    /** One instrumented path. */
+    public final class Probe {
+
+        final String name;
+        // What the units counter counts, e.g. "blocks"; null if the probe has none
+        final String unit;
+        private final LatencyHistogram nanos = new LatencyHistogram();
+        private long fastExits;
+        private long units;
+
+        private Probe(String name, String unit) {
+            this.name = name;
+            this.unit = unit;
+        }
+
+        /** The path did its full work since {@code start}. */
+        public void stop(long start) {
+            if (start != OFF) nanos.record(System.nanoTime() - start);
+        }
+
+        /** The path returned early, e.g. a move inside the same block. Counted and timed as an event. */
+        public void fastExit(long start) {
+            if (start != OFF) {
+                nanos.record(System.nanoTime() - start);
+                fastExits++;
+            }
+        }
+
+        public void addUnits(long n) {
+            if (enabled) units += n;
+        }
+
+        private void reset() {
+            nanos.reset();
+            fastExits = 0;
+            units = 0;
+        }
+    }
+
+    public Probe probe(String name, String unit) {
+        return probes.computeIfAbsent(name, n -> new Probe(n, unit));
+    }
+
+    /** @return the time to hand to a probe, or {@link #OFF} */
+    public long start() {
+        return enabled ? System.nanoTime() : OFF;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Turns timing on or off. Turning it on starts a new window. */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) reset();
+        this.enabled = enabled;
+    }
+
+    public void reset() {
+        for (Probe probe : probes.values()) {
+            probe.reset();
+        }
+        windowStart = System.currentTimeMillis();
+    }
+
+    /** Seconds since the current window started. */
+    public long windowSeconds() {
+        return (System.currentTimeMillis() - windowStart) / 1000L;
+    }
+
+    /** Plain-text summary of the current window, one line per probe. */
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        for (Probe probe : probes.values()) {
+            LatencyHistogram h = probe.nanos;
+            if (h.count() == 0) {
+                lines.add(probe.name + ": no events");
+                continue;
+            }
+            String line = probe.name + ": " + h.count() + " events, " + probe.fastExits + " fast exits"
+                    + ", p50 " + micros(h.percentile(0.50)) + " p90 " + micros(h.percentile(0.90))
+                    + " p99 " + micros(h.percentile(0.99)) + " max " + micros(h.max()) + " µs";
+            if (probe.unit != null) {
+                line += ", " + probe.units + " " + probe.unit + " (" + probe.units / h.count() + "/event)";
+            }
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1000.0);
+    }
+
+    /**
+     * Appends the current window to {@code file} every {@code intervalSeconds} while the metrics
+     * are on, then starts a new one. Does nothing for an interval <= 0.
+     */
+    public void startCsv(JavaPlugin plugin, AsyncIo.Lane io, File file, long intervalSeconds) {
+        if (csvTask != null) {
+            csvTask.cancel();
+            csvTask = null;
+        }
+        if (intervalSeconds <= 0) return;
+        long ticks = intervalSeconds * 20L;
+        csvTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            if (!enabled) return;
+            String rows = csvRows();
+            reset();
+            io.run(() -> append(plugin, file, rows));
+        }, ticks, ticks);
+    }
+
+    private String csvRows() {
+        StringBuilder rows = new StringBuilder();
+        long now = System.currentTimeMillis();
+        for (Probe probe : probes.values()) {
+            LatencyHistogram h = probe.nanos;
+            rows.append(now).append(',').append(probe.name).append(',').append(h.count()).append(',')
+                    .append(probe.fastExits).append(',').append(probe.units).append(',').append(h.mean()).append(',')
+                    .append(h.percentile(0.50)).append(',').append(h.percentile(0.90)).append(',')
+                    .append(h.percentile(0.99)).append(',').append(h.max()).append('\n');
+        }
+        return rows.toString();
+    }
+
+    private static void append(JavaPlugin plugin, File file, String rows) {
+        try {
+            boolean header = !file.isFile() || file.length() == 0;
+            Files.createDirectories(file.toPath().getParent());
+            Files.writeString(file.toPath(), header ? CSV_HEADER + rows : rows, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not write " + file.getName() + ".", e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.pilotplayz.wintermine;
+
+import org.bukkit.Location;
+
+/**
+ * One named mine: its bounds, the layout a reset writes and the state the plugin keeps for it.
+ * A new instance is created whenever the mine's config changes.
+ */
+final class Mine {
+
+    final String name;
+    final MineRegion region;
+    final MineLayout layout;
+    final MineDirtyTracker dirtyTracker;
+
+    // Ticks between automatic resets, <= 0 for manual resets only
+    final long intervalTicks;
+
+    // Reset early once fewer core blocks than this are left, -1 to disable
+    final long resetBelowOre;
+
+    // Where players caught inside the region during a reset are sent, null to lift them on top
+    final Location safePoint;
+
+    // Core blocks still in place. Set to the layout's total after every reset and kept up to
+    // date by block events; assumed full after a (re)load until the first reset.
+    long oreRemaining;
+
+    // Set while a reset of this mine is queued or running on the engine
+    MineResetJob activeJob;
+    long lastResetTick = Long.MIN_VALUE;
+    boolean earlyResetRequested;
+
+    /**
+     * @param remainingThreshold fraction of core blocks left that triggers an early reset, 0 to disable
+     */
+    Mine(String name, MineRegion region, MineLayout layout, long intervalTicks, double remainingThreshold,
+         Location safePoint) {
+        this.name = name;
+        this.region = region;
+        this.layout = layout;
+        this.dirtyTracker = new MineDirtyTracker(region);
+        this.intervalTicks = intervalTicks;
+        this.resetBelowOre = remainingThreshold > 0 ? (long) Math.ceil(layout.oreBlocks() * remainingThreshold) : -1;
+        this.oreRemaining = layout.oreBlocks();
+        this.safePoint = safePoint;
+    }
+
+    boolean isResetting() {
+        return activeJob != null;
+    }
+
+    void addOre(int delta) {
+        oreRemaining = Math.max(0, Math.min(layout.oreBlocks(), oreRemaining + delta));
+    }
+
+    /** Fraction of the core still in place, between 0 and 1. */
+    double oreFraction() {
+        return layout.oreBlocks() == 0 ? 1.0 : (double) oreRemaining / layout.oreBlocks();
+    }
+
+    boolean isBelowResetThreshold() {
+        return oreRemaining < resetBelowOre;
+    }
+}
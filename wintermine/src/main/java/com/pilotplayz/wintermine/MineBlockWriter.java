@@ -0,0 +1,114 @@
+package com.pilotplayz.wintermine;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Strategy used by {@link MineResetJob} to put blocks into the world.
+ * <p>
+ * A writer is stateful and belongs to one job. The job walks the region chunk by chunk and
+ * finishes every section of a chunk column before moving on, so {@link #beginChunk} is called
+ * once per column, and what a writer reads there stays valid until the next call, across tick
+ * slices.
+ */
+interface MineBlockWriter {
+
+    void beginChunk(World world, int chunkX, int chunkZ);
+
+    /**
+     * @return true if the block in the world was actually changed
+     */
+    boolean write(int x, int y, int z, Material material);
+
+    /**
+     * Creates the writer named by {@code reset.writer} in config.yml, falling back to the
+     * section writer for unknown names.
+     */
+    static MineBlockWriter create(String name) {
+        if (name != null && name.toLowerCase(Locale.ROOT).equals("bukkit")) {
+            return new BukkitWriter();
+        }
+        return new SectionWriter();
+    }
+
+    /**
+     * Plain Bukkit path: {@code World.getBlockAt(...).setType(...)} for every block, whether it
+     * needs changing or not.
+     */
+    final class BukkitWriter implements MineBlockWriter {
+        private World world;
+
+        @Override
+        public void beginChunk(World world, int chunkX, int chunkZ) {
+            this.world = world;
+        }
+
+        @Override
+        public boolean write(int x, int y, int z, Material material) {
+            world.getBlockAt(x, y, z).setType(material, false);
+            return true;
+        }
+    }
+
+    /**
+     * Loads each chunk once per job, reads the current blocks of all its sections from a single
+     * {@link ChunkSnapshot} and only writes the blocks that differ from the block data the
+     * material is written with. Blocks that are already correct cost an array read instead of a
+     * block lookup, light check and client update.
+     * <p>
+     * The snapshot is kept for the whole column, so a block a player changes after it was taken
+     * may be skipped as still correct. Such a change is marked dirty like any other in the mine
+     * and rewritten by the next reset.
+     */
+    final class SectionWriter implements MineBlockWriter {
+        private Chunk chunk;
+        private ChunkSnapshot snapshot;
+        // Materials with block states (stairs, logs, anything waterloggable) and the default data
+        // they are written with; a material without any has one block data, so its type is enough
+        private final Map<Material, BlockData> withStates = new EnumMap<>(Material.class);
+        private final Set<Material> stateless = EnumSet.noneOf(Material.class);
+
+        @Override
+        public void beginChunk(World world, int chunkX, int chunkZ) {
+            chunk = world.getChunkAt(chunkX, chunkZ);
+            snapshot = chunk.getChunkSnapshot(false, false, false);
+        }
+
+        @Override
+        public boolean write(int x, int y, int z, Material material) {
+            int lx = x & 15;
+            int lz = z & 15;
+            if (isAlready(lx, y, lz, material)) {
+                return false;
+            }
+            chunk.getBlock(lx, y, lz).setType(material, false);
+            return true;
+        }
+
+        private boolean isAlready(int lx, int y, int lz, Material material) {
+            if (snapshot.getBlockType(lx, y, lz) != material) return false;
+            if (stateless.contains(material)) return true;
+
+            BlockData target = withStates.get(material);
+            if (target == null) {
+                target = material.createBlockData();
+                if (target.getAsString().indexOf('[') < 0) {
+                    stateless.add(material);
+                    return true;
+                }
+                withStates.put(material, target);
+            }
+            // Reading the block data allocates, so only for materials where it can differ
+            return snapshot.getBlockData(lx, y, lz).equals(target);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.pilotplayz.wintermine;
+
+import org.bukkit.Material;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+
+/**
+ * Weighted mix of materials, e.g. 60% snow / 25% packed ice / 15% blue ice.
+ * <p>
+ * Picks use Vose's alias method: one 64-bit random value selects a column (high 32 bits) and
+ * decides between the column's own material and its alias (low 32 bits). That is O(1) per
+ * block, whatever the number of materials, with no allocation or boxing.
+ */
+final class MineComposition {
+
+    private static final double TWO_POW_32 = 4294967296.0;
+
+    private final Material[] materials;
+    private final int[] alias;
+    // Chance of keeping the column's own material, scaled to [0, 2^32]
+    private final long[] threshold;
+    // Set when there is only one material, so picks don't need a random value at all
+    private final Material single;
+
+    private MineComposition(Material[] materials, int[] alias, long[] threshold) {
+        this.materials = materials;
+        this.alias = alias;
+        this.threshold = threshold;
+        this.single = materials.length == 1 ? materials[0] : null;
+    }
+
+    static MineComposition of(Material material) {
+        return new MineComposition(new Material[]{material}, new int[]{0}, new long[]{1L << 32});
+    }
+
+    /**
+     * @param weights materials and their relative weights; weights don't need to add up to 100
+     */
+    static MineComposition weighted(Map<Material, Double> weights) {
+        int n = weights.size();
+        if (n == 0) {
+            throw new IllegalArgumentException("A composition needs at least one material");
+        }
+
+        Material[] materials = new Material[n];
+        double[] scaled = new double[n];
+        double total = 0;
+        int i = 0;
+        for (Map.Entry<Material, Double> e : weights.entrySet()) {
+            if (!(e.getValue() > 0)) {
+                throw new IllegalArgumentException("Weight of " + e.getKey() + " must be positive");
+            }
+            materials[i] = e.getKey();
+            scaled[i] = e.getValue();
+            total += e.getValue();
+            i++;
+        }
+        if (n == 1) {
+            return of(materials[0]);
+        }
+
+        // Vose: split columns into under- and over-full, then top up each small one from a large one
+        int[] alias = new int[n];
+        long[] threshold = new long[n];
+        ArrayDeque<Integer> small = new ArrayDeque<>();
+        ArrayDeque<Integer> large = new ArrayDeque<>();
+        for (i = 0; i < n; i++) {
+            scaled[i] = scaled[i] * n / total;
+            (scaled[i] < 1.0 ? small : large).add(i);
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int s = small.poll();
+            int l = large.poll();
+            threshold[s] = (long) (scaled[s] * TWO_POW_32);
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            (scaled[l] < 1.0 ? small : large).add(l);
+        }
+        // Leftovers are full columns (only off by rounding)
+        while (!large.isEmpty()) {
+            int l = large.poll();
+            threshold[l] = 1L << 32;
+            alias[l] = l;
+        }
+        while (!small.isEmpty()) {
+            int s = small.poll();
+            threshold[s] = 1L << 32;
+            alias[s] = s;
+        }
+
+        return new MineComposition(materials, alias, threshold);
+    }
+
+    /** The material if this composition has just one, otherwise null. */
+    Material singleMaterial() {
+        return single;
+    }
+
+    /** Whether a pick can ever return the material. */
+    boolean contains(Material material) {
+        for (Material m : materials) {
+            if (m == material) return true;
+        }
+        return false;
+    }
+
+    Material pick(MineRandom random) {
+        if (single != null) {
+            return single;
+        }
+        return sample(random.nextLong());
+    }
+
+    /**
+     * Maps 64 random bits to a material.
+     */
+    Material sample(long bits) {
+        int column = (int) (((bits >>> 32) * materials.length) >>> 32);
+        return (bits & 0xFFFFFFFFL) < threshold[column] ? materials[column] : materials[alias[column]];
+    }
+
+    @Override
+    public String toString() {
+        return single != null ? single.toString() : materials.length + "-material mix";
+    }
+}
@@ -0,0 +1,138 @@
+package com.pilotplayz.wintermine;
+
+import com.pilotplayz.common.AsyncIo;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+/**
+ * The {@link MineDefinition}s under {@code mines} in config.yml, parsed once on enable.
+ * <p>
+ * /mine1 and /mine2 change a definition and call {@link #changed()}. The file is only written
+ * once no corner has changed for a second, so setting both corners is one write. The main thread
+ * only copies the definitions; the I/O lane puts them into config.yml as it was loaded, renders
+ * it and moves it over the old file from a temporary one, so a crash mid-write never leaves a
+ * truncated config.
+ */
+final class MineConfigStore {
+
+    // Quiet time after the last change before the file is written
+    private static final long SAVE_DELAY_TICKS = 20L;
+
+    private final JavaPlugin plugin;
+    private final File file;
+    private final AsyncIo.Lane io;
+
+    private final Map<String, MineDefinition> mines = new LinkedHashMap<>();
+    // config.yml as loaded; every save starts from it, so the mines' other options stay
+    private String loadedYaml;
+    private BukkitTask pendingSave;
+
+    MineConfigStore(JavaPlugin plugin, AsyncIo.Lane io) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "config.yml");
+        this.io = io;
+    }
+
+    /** Parses every mine from the plugin's config. */
+    void load() {
+        mines.clear();
+        loadedYaml = plugin.getConfig().saveToString();
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("mines");
+        if (section == null) return;
+        for (String name : section.getKeys(false)) {
+            ConfigurationSection mine = section.getConfigurationSection(name);
+            if (mine != null) {
+                mines.put(MineRegistry.normalize(name), MineDefinition.read(MineRegistry.normalize(name), mine));
+            }
+        }
+    }
+
+    MineDefinition get(String name) {
+        return mines.get(MineRegistry.normalize(name));
+    }
+
+    /** @return the mine's definition, created empty if there is none yet */
+    MineDefinition getOrCreate(String name) {
+        return mines.computeIfAbsent(MineRegistry.normalize(name), MineDefinition::new);
+    }
+
+    /** Names of every mine in the config, including ones that failed to load. */
+    Collection<String> names() {
+        return Collections.unmodifiableSet(mines.keySet());
+    }
+
+    Collection<MineDefinition> all() {
+        return Collections.unmodifiableCollection(mines.values());
+    }
+
+    /** Schedules a save, pushing back one that hasn't run yet. */
+    void changed() {
+        if (pendingSave != null) {
+            pendingSave.cancel();
+        }
+        pendingSave = Bukkit.getScheduler().runTaskLater(plugin, this::save, SAVE_DELAY_TICKS);
+    }
+
+    /** @return completes once the file is written */
+    private CompletableFuture<Void> save() {
+        pendingSave = null;
+        List<MineDefinition> snapshot = new ArrayList<>(mines.size());
+        for (MineDefinition mine : mines.values()) {
+            snapshot.add(mine.copy());
+        }
+        String base = loadedYaml;
+        return io.run(() -> write(base, snapshot));
+    }
+
+    /** Puts the definitions into the loaded config and replaces config.yml with it. I/O lane. */
+    private void write(String base, List<MineDefinition> snapshot) {
+        Path target = file.toPath();
+        try {
+            YamlConfiguration yaml = new YamlConfiguration();
+            yaml.loadFromString(base);
+            for (MineDefinition mine : snapshot) {
+                ConfigurationSection sec = yaml.getConfigurationSection("mines." + mine.name);
+                mine.write(sec != null ? sec : yaml.createSection("mines." + mine.name));
+            }
+
+            Files.createDirectories(target.getParent());
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.writeString(tmp, yaml.saveToString(), StandardCharsets.UTF_8);
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | InvalidConfigurationException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not save " + file.getName() + ".", e);
+        }
+    }
+
+    /** Hands a pending save to the I/O lane right away. For onDisable, before the lane is drained. */
+    void close() {
+        if (pendingSave != null) {
+            pendingSave.cancel();
+            save();
+        }
+    }
+}
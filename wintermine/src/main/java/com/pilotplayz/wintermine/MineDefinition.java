@@ -0,0 +1,67 @@
+package com.pilotplayz.wintermine;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Where a mine is, as set with /mine1 and /mine2: the world by name and the two corner blocks.
+ * Parsed once from {@code mines.<name>} and changed in memory by the corner commands;
+ * {@link MineConfigStore} writes it back. The mine's other options stay in config.yml.
+ */
+final class MineDefinition {
+
+    record Corner(int x, int y, int z) {
+
+        /** @return null if the section has no corner under the key */
+        static Corner read(ConfigurationSection parent, String key) {
+            if (!parent.contains(key + ".x")) return null;
+            return new Corner(parent.getInt(key + ".x"), parent.getInt(key + ".y"), parent.getInt(key + ".z"));
+        }
+
+        void write(ConfigurationSection parent, String key) {
+            parent.set(key + ".x", x);
+            parent.set(key + ".y", y);
+            parent.set(key + ".z", z);
+        }
+    }
+
+    final String name;
+    String world;
+    Corner pos1;
+    Corner pos2;
+
+    MineDefinition(String name) {
+        this.name = name;
+    }
+
+    /** @return an independent copy, for handing to the I/O thread */
+    MineDefinition copy() {
+        MineDefinition copy = new MineDefinition(name);
+        copy.world = world;
+        copy.pos1 = pos1;
+        copy.pos2 = pos2;
+        return copy;
+    }
+
+    void setCorner(int corner, Corner pos) {
+        if (corner == 1) {
+            pos1 = pos;
+        } else {
+            pos2 = pos;
+        }
+    }
+
+    static MineDefinition read(String name, ConfigurationSection sec) {
+        MineDefinition def = new MineDefinition(name);
+        def.world = sec.getString("world");
+        def.pos1 = Corner.read(sec, "pos1");
+        def.pos2 = Corner.read(sec, "pos2");
+        return def;
+    }
+
+    /** Sets the world and corners in the section, leaving the mine's other keys alone. */
+    void write(ConfigurationSection sec) {
+        sec.set("world", world);
+        if (pos1 != null) pos1.write(sec, "pos1");
+        if (pos2 != null) pos2.write(sec, "pos2");
+    }
+}
@@ -0,0 +1,96 @@
+package com.pilotplayz.wintermine;
+
+import org.bukkit.World;
+
+/**
+ * Remembers which blocks of a {@link MineRegion} may no longer match the reset layout, so a
+ * reset can rewrite just those instead of the whole region.
+ * <p>
+ * Dirty blocks are kept as one 4096-bit set per chunk section, allocated on first use. Marking
+ * a block is a bounds check and a bit set.
+ */
+final class MineDirtyTracker {
+
+    private final MineRegion region;
+    private long[][] sections;
+    private long dirtyBlocks;
+
+    // Nothing is known about the region until the first full reset has been started
+    private boolean known;
+
+    MineDirtyTracker(MineRegion region) {
+        this.region = region;
+        this.sections = new long[region.sectionCount()][];
+    }
+
+    void mark(World world, int x, int y, int z) {
+        if (world != region.world || !region.contains(x, y, z)) return;
+
+        int section = region.sectionIndex(x, y, z);
+        long[] bits = sections[section];
+        if (bits == null) {
+            bits = sections[section] = new long[64];
+        }
+
+        int i = bitIndex(x, y, z);
+        long mask = 1L << i;
+        if ((bits[i >>> 6] & mask) == 0) {
+            bits[i >>> 6] |= mask;
+            dirtyBlocks++;
+        }
+    }
+
+    /**
+     * Hands the current dirty set to a reset and starts tracking again from a clean region.
+     * Changes made while that reset runs are recorded for the next one.
+     *
+     * @param fullSweepThreshold fraction of the region volume above which a full sweep is cheaper
+     * @return the dirty set, or null if the reset has to sweep the whole region
+     */
+    Dirty take(double fullSweepThreshold) {
+        boolean fullSweep = !known || dirtyBlocks > fullSweepThreshold * region.volume();
+        Dirty dirty = fullSweep ? null : new Dirty(sections, dirtyBlocks);
+
+        sections = new long[sections.length][];
+        dirtyBlocks = 0;
+        known = true;
+        return dirty;
+    }
+
+    // Bit layout inside a section: x, then y, then z, so one z-row is 16 consecutive bits
+    private static int bitIndex(int x, int y, int z) {
+        return ((x & 15) << 8) | ((y & 15) << 4) | (z & 15);
+    }
+
+    /**
+     * Immutable dirty set handed to a {@link MineResetJob}.
+     */
+    static final class Dirty {
+        private final long[][] sections;
+        private final long blocks;
+
+        private Dirty(long[][] sections, long blocks) {
+            this.sections = sections;
+            this.blocks = blocks;
+        }
+
+        long blocks() {
+            return blocks;
+        }
+
+        boolean hasSection(int section) {
+            return sections[section] != null;
+        }
+
+        /**
+         * Dirty bits of the z-row at section-local (x, y); bit n is local z = n.
+         */
+        int rowMask(int section, int x, int y) {
+            long[] bits = sections[section];
+            if (bits == null) return 0;
+            int lx = x & 15;
+            int ly = y & 15;
+            return (int) (bits[(lx << 2) | (ly >>> 2)] >>> ((ly & 3) << 4)) & 0xFFFF;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.pilotplayz.wintermine;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * What a reset writes into every block of a {@link MineRegion}, computed once per region load.
+ * <p>
+ * The layout is stored as one byte per block pointing into a small material palette, laid out
+ * so that each z-row of the region is contiguous. Resets just stream it into the world; the
+ * wall / gap / core rules only run when the layout is built.
+ * <p>
+ * Palette entries are {@link MineComposition}s, so a slot can be a weighted mix of materials
+ * that is sampled per block while streaming.
+ */
+final class MineLayout {
+
+    static final int DEFAULT_GAP_WIDTH = 1;
+    // Slots are stored in one unsigned byte per block
+    static final int MAX_SLOTS = 256;
+
+    private final MineRegion region;
+    private final MineComposition[] palette;
+    // Per palette slot: is it part of the mineable core (as opposed to wall or gap)?
+    private final boolean[] oreSlot;
+    private final byte[] blocks;
+    private final long oreBlocks;
+    private final int sizeY;
+    private final int sizeZ;
+
+    private MineLayout(MineRegion region, MineComposition[] palette, boolean[] oreSlot, byte[] blocks, long oreBlocks) {
+        this.region = region;
+        this.palette = palette;
+        this.oreSlot = oreSlot;
+        this.blocks = blocks;
+        this.oreBlocks = oreBlocks;
+        this.sizeY = region.maxY - region.minY + 1;
+        this.sizeZ = region.maxZ - region.minZ + 1;
+    }
+
+    MineRegion region() {
+        return region;
+    }
+
+    /** Index of block (x, y, region.minZ); the rest of the z-row follows it directly. */
+    int rowStart(int x, int y) {
+        return ((x - region.minX) * sizeY + (y - region.minY)) * sizeZ;
+    }
+
+    Material material(int index, MineRandom random) {
+        return palette[blocks[index] & 0xFF].pick(random);
+    }
+
+    Material materialAt(int x, int y, int z, MineRandom random) {
+        return material(rowStart(x, y) + (z - region.minZ), random);
+    }
+
+    /**
+     * Whether a reset could put the material at this core position, i.e. removing it mines ore
+     * and placing it restores ore.
+     */
+    boolean isOreMaterialAt(int x, int y, int z, Material material) {
+        int slot = blocks[rowStart(x, y) + (z - region.minZ)] & 0xFF;
+        return oreSlot[slot] && palette[slot].contains(material);
+    }
+
+    /** Number of core blocks in a freshly reset mine. */
+    long oreBlocks() {
+        return oreBlocks;
+    }
+
+    int paletteSize() {
+        return palette.length;
+    }
+
+    long sizeBytes() {
+        return blocks.length;
+    }
+
+    // ======================= BUILDING ======================= //
+
+    /**
+     * The original mine: bedrock walls and floor, a one block air gap, snow core.
+     */
+    static MineLayout defaults(MineRegion region) {
+        return build(region, Material.BEDROCK, DEFAULT_GAP_WIDTH, Material.AIR,
+                MineComposition.of(Material.SNOW_BLOCK), List.of());
+    }
+
+    /**
+     * Reads the {@code layout} section of config.yml. Missing or invalid values fall back to
+     * the defaults with a warning.
+     */
+    static MineLayout fromConfig(MineRegion region, ConfigurationSection cfg, Logger log) {
+        if (cfg == null) {
+            return defaults(region);
+        }
+
+        Material wall = readMaterial(cfg, "wall", Material.BEDROCK, log);
+        Material gap = readMaterial(cfg, "gap", Material.AIR, log);
+        MineComposition core = cfg.isConfigurationSection("core")
+                ? readComposition(cfg.getConfigurationSection("core"), log)
+                : MineComposition.of(readMaterial(cfg, "core", Material.SNOW_BLOCK, log));
+        int gapWidth = Math.max(0, cfg.getInt("gap-width", DEFAULT_GAP_WIDTH));
+
+        List<Layer> layers = new ArrayList<>();
+        for (Map<?, ?> map : cfg.getMapList("layers")) {
+            Object from = map.get("from");
+            Object to = map.get("to");
+            Object name = map.get("material");
+            Material material = name == null ? null : Material.matchMaterial(name.toString());
+            if (!(from instanceof Number) || !(to instanceof Number) || material == null || !material.isBlock()) {
+                log.warning("Ignoring invalid layout layer " + map + " (needs from, to and a block material).");
+                continue;
+            }
+            layers.add(new Layer(((Number) from).intValue(), ((Number) to).intValue(), material));
+        }
+
+        return build(region, wall, gapWidth, gap, core, layers);
+    }
+
+    /**
+     * Reads a {@code MATERIAL: weight} map, e.g. {@code SNOW_BLOCK: 60, PACKED_ICE: 25}.
+     */
+    private static MineComposition readComposition(ConfigurationSection cfg, Logger log) {
+        Map<Material, Double> weights = new LinkedHashMap<>();
+        for (String key : cfg.getKeys(false)) {
+            Material material = Material.matchMaterial(key);
+            double weight = cfg.getDouble(key, 0);
+            if (material == null || !material.isBlock() || !(weight > 0)) {
+                log.warning("Ignoring invalid layout.core entry '" + key + ": " + cfg.get(key)
+                        + "' (needs a block material and a positive weight).");
+                continue;
+            }
+            weights.merge(material, weight, Double::sum);
+        }
+
+        if (weights.isEmpty()) {
+            log.warning("layout.core has no valid materials, using SNOW_BLOCK.");
+            return MineComposition.of(Material.SNOW_BLOCK);
+        }
+        return MineComposition.weighted(weights);
+    }
+
+    private static Material readMaterial(ConfigurationSection cfg, String path, Material def, Logger log) {
+        String name = cfg.getString(path);
+        if (name == null) return def;
+
+        Material material = Material.matchMaterial(name);
+        if (material == null || !material.isBlock()) {
+            log.warning("Invalid block material '" + name + "' at layout." + path + ", using " + def + ".");
+            return def;
+        }
+        return material;
+    }
+
+    /**
+     * @param gapWidth number of blocks between the walls and the core
+     * @param layers   core material overrides, with y counted from the floor of the mine
+     * @throws IllegalArgumentException if the region is too large, or the layout has more than
+     *                                  {@link #MAX_SLOTS} distinct entries
+     */
+    static MineLayout build(MineRegion region, Material wall, int gapWidth, Material gap, MineComposition core,
+                            List<Layer> layers) {
+        long volume = region.volume();
+        if (volume > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Mine region is too large for a layout template: " + volume + " blocks");
+        }
+
+        List<MineComposition> palette = new ArrayList<>();
+        List<Boolean> ore = new ArrayList<>();
+        byte wallSlot = slot(palette, ore, MineComposition.of(wall), false);
+        byte gapSlot = slot(palette, ore, MineComposition.of(gap), false);
+
+        // Core material per y level, so layers cost nothing in the fill loop below
+        int sizeY = region.maxY - region.minY + 1;
+        byte[] coreByY = new byte[sizeY];
+        for (int dy = 0; dy < sizeY; dy++) {
+            MineComposition composition = core;
+            for (Layer layer : layers) {
+                if (dy >= layer.from && dy <= layer.to) {
+                    composition = MineComposition.of(layer.material);
+                }
+            }
+            coreByY[dy] = slot(palette, ore, composition, true);
+        }
+
+        byte[] blocks = new byte[(int) volume];
+        long oreBlocks = 0;
+        int i = 0;
+        for (int x = region.minX; x <= region.maxX; x++) {
+            for (int y = region.minY; y <= region.maxY; y++) {
+                for (int z = region.minZ; z <= region.maxZ; z++) {
+                    boolean isWall =
+                            x == region.minX ||
+                                    x == region.maxX ||
+                                    z == region.minZ ||
+                                    z == region.maxZ ||
+                                    y == region.minY;
+
+                    boolean isGap =
+                            x <= region.minX + gapWidth ||
+                                    x >= region.maxX - gapWidth ||
+                                    z <= region.minZ + gapWidth ||
+                                    z >= region.maxZ - gapWidth ||
+                                    y <= region.minY + gapWidth;
+
+                    if (isWall) {
+                        blocks[i++] = wallSlot;
+                    } else if (isGap) {
+                        blocks[i++] = gapSlot;
+                    } else {
+                        blocks[i++] = coreByY[y - region.minY];
+                        oreBlocks++;
+                    }
+                }
+            }
+        }
+
+        boolean[] oreSlot = new boolean[ore.size()];
+        for (int s = 0; s < oreSlot.length; s++) {
+            oreSlot[s] = ore.get(s);
+        }
+        return new MineLayout(region, palette.toArray(new MineComposition[0]), oreSlot, blocks, oreBlocks);
+    }
+
+    // Slots are only shared between entries of the same kind, so a core of bedrock stays ore
+    private static byte slot(List<MineComposition> palette, List<Boolean> ore, MineComposition composition,
+                             boolean isOre) {
+        for (int i = 0; i < palette.size(); i++) {
+            MineComposition existing = palette.get(i);
+            if (ore.get(i) == isOre && (existing == composition
+                    || (existing.singleMaterial() != null && existing.singleMaterial() == composition.singleMaterial()))) {
+                return (byte) i;
+            }
+        }
+        if (palette.size() == MAX_SLOTS) {
+            throw new IllegalArgumentException("Mine layout needs more than " + MAX_SLOTS
+                    + " distinct materials (wall, gap and core layers); reduce the layout.layers entries");
+        }
+        palette.add(composition);
+        ore.add(isOre);
+        return (byte) (palette.size() - 1);
+    }
+
+    /**
+     * Core material override for the y levels {@code from..to} (inclusive), relative to the
+     * mine floor.
+     */
+    static final class Layer {
+        final int from;
+        final int to;
+        final Material material;
+
+        Layer(int from, int to, Material material) {
+            this.from = from;
+            this.to = to;
+            this.material = material;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.pilotplayz.wintermine;
+
+/**
+ * SplitMix64: a tiny, fast, seedable PRNG for the reset loop. Not thread-safe; every reset
+ * job owns its own instance.
+ */
+final class MineRandom {
+
+    private long state;
+
+    MineRandom(long seed) {
+        this.state = seed;
+    }
+
+    long nextLong() {
+        long z = (state += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,57 @@
+package com.pilotplayz.wintermine;
+
+import org.bukkit.World;
+
+/**
+ * Inclusive block bounds of the mine. What gets written inside them is a {@link MineLayout}.
+ */
+final class MineRegion {
+
+    final World world;
+    final int minX, maxX, minY, maxY, minZ, maxZ;
+
+    // Chunk sections touched by the region, used to index per-section data
+    private final int sectionMinX, sectionMinY, sectionMinZ;
+    private final int sectionsY, sectionsZ, sectionCount;
+
+    MineRegion(World w, int x1, int y1, int z1, int x2, int y2, int z2) {
+        world = w;
+        minX = Math.min(x1, x2);
+        maxX = Math.max(x1, x2);
+        minY = Math.min(y1, y2);
+        maxY = Math.max(y1, y2);
+        minZ = Math.min(z1, z2);
+        maxZ = Math.max(z1, z2);
+
+        sectionMinX = minX >> 4;
+        sectionMinY = minY >> 4;
+        sectionMinZ = minZ >> 4;
+        sectionsY = (maxY >> 4) - sectionMinY + 1;
+        sectionsZ = (maxZ >> 4) - sectionMinZ + 1;
+        sectionCount = ((maxX >> 4) - sectionMinX + 1) * sectionsZ * sectionsY;
+    }
+
+    boolean valid() {
+        return world != null && minX <= maxX && minY <= maxY && minZ <= maxZ;
+    }
+
+    long volume() {
+        return (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+    }
+
+    boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    int sectionCount() {
+        return sectionCount;
+    }
+
+    /**
+     * Dense index of the chunk section containing the block, ordered x-chunk, z-chunk, section-y.
+     * That is the same order {@link MineResetJob} visits its work units in.
+     */
+    int sectionIndex(int x, int y, int z) {
+        return (((x >> 4) - sectionMinX) * sectionsZ + ((z >> 4) - sectionMinZ)) * sectionsY + ((y >> 4) - sectionMinY);
+    }
+}
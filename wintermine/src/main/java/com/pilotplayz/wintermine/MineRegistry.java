@@ -0,0 +1,231 @@
+package com.pilotplayz.wintermine;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * All loaded mines, by name and by chunk. Built from the {@link MineDefinition}s plus the
+ * per-mine options under {@code mines.<name>} in config.yml.
+ * <p>
+ * The chunk index maps every chunk column a mine touches to the mines in it, so finding the
+ * mine at a block position is one hash lookup plus a bounds check instead of a scan over all
+ * mines.
+ */
+final class MineRegistry {
+
+    private static final Pattern VALID_NAME = Pattern.compile("[a-z0-9_-]{1,32}");
+    private static final Mine[] NO_MINES = new Mine[0];
+
+    private final Logger log;
+    private final Map<String, Mine> byName = new LinkedHashMap<>();
+    private final Map<Long, Mine[]> byChunk = new HashMap<>();
+
+    MineRegistry(Logger log) {
+        this.log = log;
+    }
+
+    static boolean isValidName(String name) {
+        return name != null && VALID_NAME.matcher(name).matches();
+    }
+
+    static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    Mine get(String name) {
+        return byName.get(normalize(name));
+    }
+
+    Collection<Mine> all() {
+        return Collections.unmodifiableCollection(byName.values());
+    }
+
+    /**
+     * @return the mine containing the block, or null
+     */
+    Mine mineAt(World world, int x, int y, int z) {
+        Mine[] mines = byChunk.getOrDefault(chunkKey(x >> 4, z >> 4), NO_MINES);
+        for (Mine mine : mines) {
+            if (mine.region.world == world && mine.region.contains(x, y, z)) {
+                return mine;
+            }
+        }
+        return null;
+    }
+
+    // ======================= LOADING ======================= //
+
+    void loadAll(Collection<MineDefinition> definitions, FileConfiguration cfg) {
+        byName.clear();
+        byChunk.clear();
+        for (MineDefinition def : definitions) {
+            reload(def.name, def, cfg);
+        }
+        log.info("Loaded " + byName.size() + " mine(s).");
+    }
+
+    /**
+     * Rebuilds one mine from its definition and the config and swaps it into the registry.
+     *
+     * @param def the mine's definition, null if it has none
+     * @return the new mine, or null if it is missing or invalid (it is then unregistered)
+     */
+    Mine reload(String name, MineDefinition def, FileConfiguration cfg) {
+        name = normalize(name);
+        Mine old = byName.remove(name);
+        if (old != null) {
+            unindex(old);
+        }
+
+        Mine mine = load(name, def, cfg);
+        if (mine != null) {
+            for (Mine other : byName.values()) {
+                if (overlaps(mine.region, other.region)) {
+                    log.warning("Mine '" + name + "' overlaps mine '" + other.name
+                            + "'. Blocks in the overlap are only tracked for one of them.");
+                }
+            }
+            byName.put(name, mine);
+            index(mine);
+        }
+        return mine;
+    }
+
+    private Mine load(String name, MineDefinition def, FileConfiguration cfg) {
+        if (def == null) {
+            return null;
+        }
+
+        String worldName = def.world;
+        if (worldName == null || worldName.isEmpty()) {
+            return null;
+        }
+
+        World world = Bukkit.getWorld(worldName);
+        if (world == null) {
+            log.severe("Invalid world name for mine '" + name + "' in config.yml: " + worldName);
+            return null;
+        }
+
+        if (def.pos1 == null || def.pos2 == null) {
+            return null;
+        }
+
+        MineRegion region = new MineRegion(world,
+                def.pos1.x(), def.pos1.y(), def.pos1.z(),
+                def.pos2.x(), def.pos2.y(), def.pos2.z());
+
+        if (!region.valid()) {
+            log.warning("Mine '" + name + "' region is invalid after loading.");
+            return null;
+        }
+        log.info("Mine '" + name + "' region loaded: (" +
+                region.minX + "," + region.minY + "," + region.minZ + ") to (" +
+                region.maxX + "," + region.maxY + "," + region.maxZ + ") in world " +
+                world.getName());
+
+        // The layout only depends on the bounds and the layout config, so build it once here.
+        // A mine's own layout section replaces the top-level default. A mine created by /mine1
+        // has no section until its first save, and then only uses the defaults. The config is
+        // only read here; it is the store's to write.
+        ConfigurationSection sec = cfg.getConfigurationSection("mines." + name);
+        ConfigurationSection layoutCfg = sec != null && sec.isConfigurationSection("layout")
+                ? sec.getConfigurationSection("layout")
+                : cfg.getConfigurationSection("layout");
+        long start = System.nanoTime();
+        MineLayout layout;
+        try {
+            layout = MineLayout.fromConfig(region, layoutCfg, log);
+        } catch (IllegalArgumentException e) {
+            log.severe("Mine '" + name + "': " + e.getMessage());
+            return null;
+        }
+        log.info("Mine '" + name + "' layout built: " + layout.sizeBytes() + " bytes, " + layout.paletteSize()
+                + " materials, " + (System.nanoTime() - start) / 1_000_000L + " ms.");
+
+        int defaultMinutes = cfg.getInt("auto-reset-minutes", 5);
+        int minutes = sec != null ? sec.getInt("reset-minutes", defaultMinutes) : defaultMinutes;
+        if (minutes <= 0) {
+            log.info("Mine '" + name + "' has a reset interval <= 0, auto reset disabled for it.");
+        }
+        double defaultRemaining = cfg.getDouble("reset.remaining-threshold", 0.0);
+        double remaining = sec != null ? sec.getDouble("remaining-threshold", defaultRemaining) : defaultRemaining;
+        ConfigurationSection safeCfg = sec != null && sec.isConfigurationSection("safe-point")
+                ? sec.getConfigurationSection("safe-point")
+                : cfg.getConfigurationSection("reset.safe-point");
+        Location safePoint = loadSafePoint(name, safeCfg, world);
+        return new Mine(name, region, layout, minutes * 60L * 20L, remaining, safePoint);
+    }
+
+    /**
+     * @return the location in the section (world defaults to the mine's), or null if there is none
+     */
+    private Location loadSafePoint(String mineName, ConfigurationSection sec, World mineWorld) {
+        if (sec == null || !sec.contains("x") || !sec.contains("y") || !sec.contains("z")) {
+            return null;
+        }
+        World world = mineWorld;
+        String worldName = sec.getString("world");
+        if (worldName != null && !worldName.isEmpty()) {
+            world = Bukkit.getWorld(worldName);
+            if (world == null) {
+                log.warning("Mine '" + mineName + "': unknown safe-point world '" + worldName
+                        + "', players will be lifted on top of the mine instead.");
+                return null;
+            }
+        }
+        return new Location(world, sec.getDouble("x"), sec.getDouble("y"), sec.getDouble("z"),
+                (float) sec.getDouble("yaw", 0.0), (float) sec.getDouble("pitch", 0.0));
+    }
+
+    // ======================= CHUNK INDEX ======================= //
+
+    private void index(Mine mine) {
+        MineRegion r = mine.region;
+        for (int cx = r.minX >> 4; cx <= r.maxX >> 4; cx++) {
+            for (int cz = r.minZ >> 4; cz <= r.maxZ >> 4; cz++) {
+                byChunk.merge(chunkKey(cx, cz), new Mine[]{mine}, (a, b) -> {
+                    Mine[] merged = Arrays.copyOf(a, a.length + 1);
+                    merged[a.length] = mine;
+                    return merged;
+                });
+            }
+        }
+    }
+
+    private void unindex(Mine mine) {
+        MineRegion r = mine.region;
+        for (int cx = r.minX >> 4; cx <= r.maxX >> 4; cx++) {
+            for (int cz = r.minZ >> 4; cz <= r.maxZ >> 4; cz++) {
+                byChunk.computeIfPresent(chunkKey(cx, cz), (k, mines) -> {
+                    Mine[] left = Arrays.stream(mines).filter(m -> m != mine).toArray(Mine[]::new);
+                    return left.length == 0 ? null : left;
+                });
+            }
+        }
+    }
+
+    private static boolean overlaps(MineRegion a, MineRegion b) {
+        return a.world == b.world
+                && a.minX <= b.maxX && b.minX <= a.maxX
+                && a.minY <= b.maxY && b.minY <= a.maxY
+                && a.minZ <= b.maxZ && b.minZ <= a.maxZ;
+    }
+
+    static long chunkKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+}
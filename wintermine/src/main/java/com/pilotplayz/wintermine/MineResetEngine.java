@@ -0,0 +1,110 @@
+package com.pilotplayz.wintermine;
+
+import com.pilotplayz.common.PerfMetrics;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayDeque;
+
+/**
+ * Runs queued {@link MineResetJob}s on the main thread. All mines share one per-tick budget:
+ * at most a fixed number of milliseconds and a fixed number of blocks per tick. Jobs are
+ * processed in submission order; the repeating task only exists while there is work queued.
+ */
+final class MineResetEngine {
+
+    private final JavaPlugin plugin;
+    private final ArrayDeque<MineResetJob> queue = new ArrayDeque<>();
+    private final PerfMetrics perf;
+    private final PerfMetrics.Probe tickProbe;
+
+    private long budgetNanos;
+    private long budgetBlocks;
+    private int taskId = -1;
+
+    MineResetEngine(JavaPlugin plugin, double budgetMillis, long budgetBlocks, PerfMetrics perf) {
+        this.plugin = plugin;
+        this.perf = perf;
+        this.tickProbe = perf.probe("resetTick", "blocks");
+        setBudget(budgetMillis, budgetBlocks);
+    }
+
+    /**
+     * @param budgetBlocks blocks per tick across all jobs, <= 0 for no block limit
+     */
+    void setBudget(double budgetMillis, long budgetBlocks) {
+        // A job always writes at least one row per slice, so even a zero budget makes progress
+        this.budgetNanos = Math.max(0L, (long) (budgetMillis * 1_000_000L));
+        this.budgetBlocks = budgetBlocks <= 0 ? Long.MAX_VALUE : budgetBlocks;
+    }
+
+    MineResetJob submit(MineLayout layout, MineBlockWriter writer, MineDirtyTracker.Dirty dirty, long seed,
+                        MineResetJob.Listener listener) {
+        MineResetJob job = new MineResetJob(layout, writer, dirty, seed, listener);
+        queue.add(job);
+
+        if (taskId == -1) {
+            taskId = Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, this::tick, 0L, 1L);
+        }
+        return job;
+    }
+
+    /**
+     * Drops a queued or partly written job; its listener is not told. Blocks it already wrote
+     * stay as they are.
+     */
+    void cancel(MineResetJob job) {
+        queue.remove(job);
+        if (queue.isEmpty() && taskId != -1) {
+            Bukkit.getScheduler().cancelTask(taskId);
+            taskId = -1;
+        }
+    }
+
+    /**
+     * Stops the tick task and writes everything that is still queued right now, so a disable
+     * in the middle of a reset never leaves a region half-filled.
+     */
+    void shutdown() {
+        if (taskId != -1) {
+            Bukkit.getScheduler().cancelTask(taskId);
+            taskId = -1;
+        }
+
+        if (!queue.isEmpty()) {
+            plugin.getLogger().info("Finishing " + queue.size() + " pending mine reset(s) before shutdown...");
+        }
+        MineResetJob job;
+        while ((job = queue.poll()) != null) {
+            job.run(Long.MAX_VALUE, Long.MAX_VALUE);
+        }
+    }
+
+    private void tick() {
+        long start = perf.start();
+        long deadline = System.nanoTime() + budgetNanos;
+        long blocksLeft = budgetBlocks;
+
+        MineResetJob job;
+        while ((job = queue.peek()) != null) {
+            long before = job.blocksWritten();
+            boolean done = job.run(deadline, blocksLeft);
+            blocksLeft -= job.blocksWritten() - before;
+            if (!done) {
+                break;
+            }
+            queue.poll();
+            if (blocksLeft <= 0 || System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+
+        tickProbe.stop(start);
+        tickProbe.addUnits(budgetBlocks - blocksLeft);
+
+        if (queue.isEmpty() && taskId != -1) {
+            Bukkit.getScheduler().cancelTask(taskId);
+            taskId = -1;
+        }
+    }
+}
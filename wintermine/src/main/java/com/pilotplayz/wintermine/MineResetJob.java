@@ -0,0 +1,236 @@
+package com.pilotplayz.wintermine;
+
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One reset of a {@link MineRegion} that can be spread over several ticks.
+ * <p>
+ * The region is cut into work units aligned to 16x16x16 chunk sections, ordered so that all
+ * sections of one chunk column are visited back to back. Each unit is written one z-row at a
+ * time and the job can stop after any row, so a slice never overshoots its tick budget by more
+ * than a single row of blocks. The actual block writes go through a {@link MineBlockWriter}.
+ * <p>
+ * A job either sweeps the whole region or, when given a {@link MineDirtyTracker.Dirty} set,
+ * only visits the dirty sections and writes just the dirty blocks in them.
+ */
+final class MineResetJob {
+
+    /**
+     * Callbacks fired on the main thread while the job runs.
+     */
+    interface Listener {
+        /**
+         * Called right before blocks in the chunk column are written: when the job reaches
+         * the column and again at the start of every tick slice that resumes inside it.
+         */
+        default void beforeChunk(MineResetJob job, int cx, int cz) {
+        }
+
+        /** Called after every tick slice that made progress but did not finish the job. */
+        default void onProgress(MineResetJob job) {
+        }
+
+        void onFinish(MineResetJob job);
+    }
+
+    private final MineRegion region;
+    private final MineLayout layout;
+    private final MineBlockWriter writer;
+    private final MineDirtyTracker.Dirty dirty;
+    private final MineRandom random;
+    private final Listener listener;
+    private final List<WorkUnit> units;
+    private final long totalBlocks;
+    private final long startedAt = System.nanoTime();
+
+    private long blocksWritten;
+    private long blocksChanged;
+    private int ticks;
+    private long finishedAt = -1;
+
+    // Chunk column the writer was last started on; the writer keeps what it read across slices
+    private long writerChunk = Long.MIN_VALUE;
+
+    // Cursor: current unit and the (x, y) of the next z-row inside it
+    private int unitIndex;
+    private int rowX;
+    private int rowY;
+
+    /**
+     * @param dirty blocks to rewrite, or null to sweep the whole region
+     * @param seed  seed for the materials picked from weighted compositions
+     */
+    MineResetJob(MineLayout layout, MineBlockWriter writer, MineDirtyTracker.Dirty dirty, long seed,
+                 Listener listener) {
+        this.region = layout.region();
+        this.layout = layout;
+        this.writer = writer;
+        this.dirty = dirty;
+        this.random = new MineRandom(seed);
+        this.listener = listener;
+        this.units = splitIntoUnits(region, dirty);
+        this.totalBlocks = dirty == null ? region.volume() : dirty.blocks();
+
+        if (!units.isEmpty()) {
+            rowX = units.get(0).minX;
+            rowY = units.get(0).minY;
+        }
+    }
+
+    MineRegion region() {
+        return region;
+    }
+
+    boolean isFullSweep() {
+        return dirty == null;
+    }
+
+    long totalBlocks() {
+        return totalBlocks;
+    }
+
+    long blocksWritten() {
+        return blocksWritten;
+    }
+
+    /** Blocks that actually differed from the target layout (equal to {@link #blocksWritten()} for writers that don't compare). */
+    long blocksChanged() {
+        return blocksChanged;
+    }
+
+    /** Fraction of the planned blocks written so far, between 0 and 1. */
+    double progress() {
+        return totalBlocks == 0 ? 1.0 : (double) blocksWritten / totalBlocks;
+    }
+
+    int ticks() {
+        return ticks;
+    }
+
+    boolean isDone() {
+        return unitIndex >= units.size();
+    }
+
+    /** Wall-clock time from creation until the last block was written (or until now if still running). */
+    long elapsedMillis() {
+        long end = finishedAt >= 0 ? finishedAt : System.nanoTime();
+        return (end - startedAt) / 1_000_000L;
+    }
+
+    /**
+     * Writes rows until the job is finished, {@code System.nanoTime()} passes the deadline or
+     * at least {@code maxBlocks} blocks were written in this call.
+     *
+     * @return true once every planned block has been written
+     */
+    boolean run(long deadlineNanos, long maxBlocks) {
+        if (finishedAt >= 0) return true;
+        ticks++;
+        long blockLimit = blocksWritten + maxBlocks;
+        if (blockLimit < 0) {
+            blockLimit = Long.MAX_VALUE; // overflow for "no limit"
+        }
+
+        World w = region.world;
+        long chunkKey = Long.MIN_VALUE; // force beforeChunk at the start of every slice
+        while (unitIndex < units.size()) {
+            WorkUnit unit = units.get(unitIndex);
+
+            if (unit.chunkKey != chunkKey) {
+                chunkKey = unit.chunkKey;
+                listener.beforeChunk(this, unit.minX >> 4, unit.minZ >> 4);
+                if (chunkKey != writerChunk) {
+                    writerChunk = chunkKey;
+                    writer.beginChunk(w, unit.minX >> 4, unit.minZ >> 4);
+                }
+            }
+
+            // Template index of (rowX, rowY, z) is rowBase + z
+            int rowBase = layout.rowStart(rowX, rowY) - region.minZ;
+            if (dirty == null) {
+                for (int z = unit.minZ; z <= unit.maxZ; z++) {
+                    if (writer.write(rowX, rowY, z, layout.material(rowBase + z, random))) {
+                        blocksChanged++;
+                    }
+                }
+                blocksWritten += unit.maxZ - unit.minZ + 1;
+            } else {
+                int mask = dirty.rowMask(unit.section, rowX, rowY);
+                for (int z = unit.minZ; mask != 0 && z <= unit.maxZ; z++) {
+                    if ((mask & (1 << (z & 15))) != 0) {
+                        if (writer.write(rowX, rowY, z, layout.material(rowBase + z, random))) {
+                            blocksChanged++;
+                        }
+                        blocksWritten++;
+                    }
+                }
+            }
+
+            // Advance to the next row: y first, then x, then the next unit
+            if (++rowY > unit.maxY) {
+                rowY = unit.minY;
+                if (++rowX > unit.maxX) {
+                    if (++unitIndex < units.size()) {
+                        WorkUnit next = units.get(unitIndex);
+                        rowX = next.minX;
+                        rowY = next.minY;
+                    }
+                }
+            }
+
+            if (blocksWritten >= blockLimit || System.nanoTime() >= deadlineNanos) {
+                break;
+            }
+        }
+
+        if (isDone()) {
+            finishedAt = System.nanoTime();
+            listener.onFinish(this);
+            return true;
+        }
+        listener.onProgress(this);
+        return false;
+    }
+
+    private static List<WorkUnit> splitIntoUnits(MineRegion r, MineDirtyTracker.Dirty dirty) {
+        List<WorkUnit> list = new ArrayList<>();
+        for (int cx = r.minX >> 4; cx <= r.maxX >> 4; cx++) {
+            for (int cz = r.minZ >> 4; cz <= r.maxZ >> 4; cz++) {
+                for (int sy = r.minY >> 4; sy <= r.maxY >> 4; sy++) {
+                    WorkUnit unit = new WorkUnit(
+                            Math.max(r.minX, cx << 4), Math.min(r.maxX, (cx << 4) + 15),
+                            Math.max(r.minY, sy << 4), Math.min(r.maxY, (sy << 4) + 15),
+                            Math.max(r.minZ, cz << 4), Math.min(r.maxZ, (cz << 4) + 15),
+                            r.sectionIndex(cx << 4, sy << 4, cz << 4));
+                    if (dirty == null || dirty.hasSection(unit.section)) {
+                        list.add(unit);
+                    }
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Intersection of the region with one chunk section.
+     */
+    private static final class WorkUnit {
+        final int minX, maxX, minY, maxY, minZ, maxZ;
+        final long chunkKey;
+        final int section;
+
+        WorkUnit(int minX, int maxX, int minY, int maxY, int minZ, int maxZ, int section) {
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.minZ = minZ;
+            this.maxZ = maxZ;
+            this.chunkKey = ((long) (minX >> 4) << 32) | ((minZ >> 4) & 0xFFFFFFFFL);
+            this.section = section;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.pilotplayz.wintermine;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Decides when each mine resets automatically. One repeating task serves every mine.
+ * <p>
+ * Due times are kept in a tick-sorted map and every new due time is pushed back until it is
+ * at least {@code spacingTicks} away from all others, so no two mines start resetting on the
+ * same tick even when they share an interval.
+ */
+final class MineResetScheduler {
+
+    private final JavaPlugin plugin;
+    private final Consumer<Mine> resetAction;
+    private final TreeMap<Long, Mine> schedule = new TreeMap<>();
+    private final Map<Mine, Long> dueTick = new HashMap<>();
+
+    private final long spacingTicks;
+    private long tick;
+    private int taskId = -1;
+
+    MineResetScheduler(JavaPlugin plugin, long spacingTicks, Consumer<Mine> resetAction) {
+        this.plugin = plugin;
+        this.spacingTicks = Math.max(1L, spacingTicks);
+        this.resetAction = resetAction;
+    }
+
+    void start() {
+        if (taskId == -1) {
+            taskId = Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    void stop() {
+        if (taskId != -1) {
+            Bukkit.getScheduler().cancelTask(taskId);
+            taskId = -1;
+        }
+        schedule.clear();
+        dueTick.clear();
+    }
+
+    /**
+     * (Re)schedules the mine's next automatic reset one interval from now. Mines without an
+     * interval are only unscheduled.
+     */
+    void schedule(Mine mine) {
+        unschedule(mine);
+        if (mine.intervalTicks <= 0) {
+            return;
+        }
+        long at = freeSlot(tick + mine.intervalTicks);
+        schedule.put(at, mine);
+        dueTick.put(mine, at);
+    }
+
+    void unschedule(Mine mine) {
+        Long at = dueTick.remove(mine);
+        if (at != null) {
+            schedule.remove(at);
+        }
+    }
+
+    /**
+     * Moves the mine's next reset forward to {@code delayTicks} from now (or the nearest free
+     * slot after it). Does nothing if it is already due sooner.
+     */
+    void scheduleSooner(Mine mine, long delayTicks) {
+        long desired = tick + Math.max(0L, delayTicks);
+        Long at = dueTick.get(mine);
+        if (at != null && at <= desired) {
+            return;
+        }
+        unschedule(mine);
+        long slot = freeSlot(desired);
+        schedule.put(slot, mine);
+        dueTick.put(mine, slot);
+    }
+
+    /** Ticks since the scheduler started. */
+    long currentTick() {
+        return tick;
+    }
+
+    private long freeSlot(long desired) {
+        long t = desired;
+        while (true) {
+            Long before = schedule.floorKey(t);
+            if (before != null && t - before < spacingTicks) {
+                t = before + spacingTicks;
+                continue;
+            }
+            Long after = schedule.ceilingKey(t);
+            if (after != null && after - t < spacingTicks) {
+                t = after + spacingTicks;
+                continue;
+            }
+            return t;
+        }
+    }
+
+    private void tick() {
+        tick++;
+        Map.Entry<Long, Mine> next;
+        while ((next = schedule.firstEntry()) != null && next.getKey() <= tick) {
+            Mine mine = next.getValue();
+            schedule.pollFirstEntry();
+            dueTick.remove(mine);
+
+            resetAction.accept(mine);
+            if (!dueTick.containsKey(mine)) {
+                schedule(mine);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.pilotplayz.wintermine;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Online players by world and chunk column, so the players near a mine can be found with a
+ * couple of hash lookups instead of a pass over every online player.
+ * <p>
+ * The index is only touched when a player crosses a chunk border, joins, quits, teleports or
+ * respawns; ordinary movement inside a chunk costs two shifts and a compare.
+ */
+final class PlayerChunkIndex implements Listener {
+
+    private final Map<UUID, Map<Long, Set<Player>>> byWorld = new HashMap<>();
+    private final Map<Player, Position> positions = new HashMap<>();
+
+    /** Indexes everyone already online, e.g. after a plugin reload. */
+    void addOnlinePlayers() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            update(player, player.getLocation());
+        }
+    }
+
+    /**
+     * @return the players currently in the chunk column; may be a live view, so copy it before
+     * teleporting anyone in it
+     */
+    Collection<Player> playersIn(World world, int cx, int cz) {
+        Map<Long, Set<Player>> chunks = byWorld.get(world.getUID());
+        if (chunks == null) {
+            return Collections.emptySet();
+        }
+        Set<Player> players = chunks.get(MineRegistry.chunkKey(cx, cz));
+        return players == null ? Collections.emptySet() : players;
+    }
+
+    // ======================= EVENTS ======================= //
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        remove(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMove(PlayerMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (to == null) return;
+        if ((from.getBlockX() >> 4) == (to.getBlockX() >> 4)
+                && (from.getBlockZ() >> 4) == (to.getBlockZ() >> 4)
+                && from.getWorld() == to.getWorld()) {
+            return;
+        }
+        update(event.getPlayer(), to);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTeleport(PlayerTeleportEvent event) {
+        // Teleports have their own handler list, so onMove never sees them
+        if (event.getTo() != null) {
+            update(event.getPlayer(), event.getTo());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        update(event.getPlayer(), event.getRespawnLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    // ======================= INDEX ======================= //
+
+    private void update(Player player, Location location) {
+        World world = location.getWorld();
+        if (world == null) return;
+        Position now = new Position(world.getUID(), MineRegistry.chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+
+        Position old = positions.put(player, now);
+        if (now.equals(old)) {
+            return;
+        }
+        if (old != null) {
+            unlink(player, old);
+        }
+        byWorld.computeIfAbsent(now.world, w -> new HashMap<>())
+                .computeIfAbsent(now.chunk, c -> new HashSet<>())
+                .add(player);
+    }
+
+    private void remove(Player player) {
+        Position old = positions.remove(player);
+        if (old != null) {
+            unlink(player, old);
+        }
+    }
+
+    private void unlink(Player player, Position position) {
+        Map<Long, Set<Player>> chunks = byWorld.get(position.world);
+        if (chunks == null) return;
+        Set<Player> players = chunks.get(position.chunk);
+        if (players != null && players.remove(player) && players.isEmpty()) {
+            chunks.remove(position.chunk);
+        }
+    }
+
+    private record Position(UUID world, long chunk) {
+    }
+}
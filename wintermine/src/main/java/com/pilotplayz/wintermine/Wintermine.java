@@ -1,38 +1,135 @@
 package com.pilotplayz.wintermine;
 
+import com.pilotplayz.common.AsyncIo;
+import com.pilotplayz.common.PerfMetrics;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockMultiPlaceEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 
-public class Wintermine extends JavaPlugin {
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
-    private MineRegion region;
-    private int taskId = -1;
+public class Wintermine extends JavaPlugin implements Listener {
+
+    private static final String DEFAULT_MINE = "default";
+
+    // Runs config saves and the metrics CSV off the main thread
+    private AsyncIo io;
+
+    // Hot-path timings for /mine perf; off unless metrics.enabled, and free while off
+    private final PerfMetrics perf = new PerfMetrics();
+    private final PerfMetrics.Probe resetProbe = perf.probe("resetMine", "blocks");
+    private final PerfMetrics.Probe blockBreakProbe = perf.probe("onBlockBreak", null);
+    private MineConfigStore mineConfigs;
+    private MineRegistry mines;
+    private MineResetEngine resetEngine;
+    private MineResetScheduler scheduler;
+    private PlayerChunkIndex players;
 
     @Override
     public void onEnable() {
         saveDefaultConfig();
-        loadRegion();
-        startAutoReset();
+        io = new AsyncIo("Wintermine", getLogger());
+        boolean migrated = migrateLegacyMine();
+        mineConfigs = new MineConfigStore(this, io.lane("config"));
+        mineConfigs.load();
+        if (migrated) {
+            mineConfigs.changed();
+        }
+
+        FileConfiguration cfg = getConfig();
+        perf.setEnabled(cfg.getBoolean("metrics.enabled", false));
+        perf.startCsv(this, io.lane("metrics"), new File(getDataFolder(), "metrics.csv"),
+                cfg.getLong("metrics.csv-interval-seconds", 60L));
+
+        resetEngine = new MineResetEngine(this,
+                cfg.getDouble("reset.tick-budget-ms", 10.0),
+                cfg.getLong("reset.blocks-per-tick", 50000L),
+                perf);
+        scheduler = new MineResetScheduler(this, cfg.getLong("reset.stagger-ticks", 40L), this::autoReset);
+
+        mines = new MineRegistry(getLogger());
+        mines.loadAll(mineConfigs.all(), cfg);
+        for (Mine mine : mines.all()) {
+            scheduler.schedule(mine);
+        }
+        scheduler.start();
+
+        players = new PlayerChunkIndex();
+        players.addOnlinePlayers();
+
+        getServer().getPluginManager().registerEvents(this, this);
+        getServer().getPluginManager().registerEvents(players, this);
         getLogger().info("Wintermine Prison Mine Plugin Enabled!");
     }
 
     @Override
     public void onDisable() {
-        if (taskId != -1) {
-            Bukkit.getScheduler().cancelTask(taskId);
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+        // Never leave a mine half-reset: finish whatever the engine still has queued
+        if (resetEngine != null) {
+            resetEngine.shutdown();
+        }
+        if (mineConfigs != null) {
+            mineConfigs.close();
+        }
+        // close() only queued the last save; wait for it before the server goes on
+        if (io != null) {
+            io.drain(10, TimeUnit.SECONDS);
         }
         getLogger().info("Wintermine Disabled");
     }
 
+    /**
+     * Configs from before multi-mine support have a single top-level {@code mine} section.
+     * Move it to {@code mines.default} so it keeps working.
+     *
+     * @return whether the config changed and needs saving
+     */
+    private boolean migrateLegacyMine() {
+        FileConfiguration cfg = getConfig();
+        ConfigurationSection legacy = cfg.getConfigurationSection("mine");
+        if (legacy == null) return false;
+
+        if (!cfg.contains("mines." + DEFAULT_MINE)) {
+            for (String key : legacy.getKeys(true)) {
+                if (!legacy.isConfigurationSection(key)) {
+                    cfg.set("mines." + DEFAULT_MINE + "." + key, legacy.get(key));
+                }
+            }
+            getLogger().info("Moved the old 'mine' section to 'mines." + DEFAULT_MINE + "' in config.yml.");
+        }
+        cfg.set("mine", null);
+        return true;
+    }
+
     // ======================= COMMANDS ======================= //
 
     @Override
@@ -40,49 +137,55 @@ public class Wintermine extends JavaPlugin {
 
         String name = cmd.getName().toLowerCase();
 
+        // /resetmine [name|all]
         if (name.equals("resetmine")) {
             if (!sender.hasPermission("wintermine.reset")) {
                 sender.sendMessage(ChatColor.RED + "You don't have permission!");
                 return true;
             }
 
-            resetMine();
-            Bukkit.broadcastMessage(ChatColor.AQUA + "[Mine] " + ChatColor.YELLOW +
-                    "The mine was manually reset!");
+            String target = args.length > 0 ? MineRegistry.normalize(args[0]) : "all";
+            if (target.equals("all")) {
+                if (mines.all().isEmpty()) {
+                    sender.sendMessage(ChatColor.RED + "No mines are set up yet. Use /mine1 <name> and /mine2 <name>.");
+                    return true;
+                }
+                int queued = 0;
+                for (Mine mine : mines.all()) {
+                    if (manualReset(mine, null) != null) {
+                        queued++;
+                    }
+                }
+                sender.sendMessage(ChatColor.GREEN + "Queued " + queued + " of " + mines.all().size() + " mine(s) for reset.");
+                return true;
+            }
+
+            Mine mine = mines.get(target);
+            if (mine == null) {
+                sender.sendMessage(ChatColor.RED + "Unknown or invalid mine '" + target + "'.");
+                return true;
+            }
+            if (manualReset(mine, sender) == null) {
+                sender.sendMessage(ChatColor.RED + "Mine '" + mine.name + "' is already being reset.");
+            }
             return true;
         }
 
-        // /mine1 – set first corner at player location
-        if (name.equals("mine1")) {
-            if (!(sender instanceof Player)) {
-                sender.sendMessage(ChatColor.RED + "Only players can use this command.");
+        // /mine perf [on|off|reset] – hot-path timings
+        if (name.equals("mine")) {
+            if (!sender.hasPermission("wintermine.perf")) {
+                sender.sendMessage(ChatColor.RED + "You don't have permission!");
                 return true;
             }
-            if (!sender.hasPermission("wintermine.setmine")) {
-                sender.sendMessage(ChatColor.RED + "You don't have permission!");
+            if (args.length < 1 || !args[0].equalsIgnoreCase("perf")) {
+                sender.sendMessage(ChatColor.RED + "Usage: /mine perf [on|off|reset]");
                 return true;
             }
-
-            Player p = (Player) sender;
-            Location loc = p.getLocation();
-            FileConfiguration cfg = getConfig();
-
-            cfg.set("mine.world", loc.getWorld().getName());
-            cfg.set("mine.pos1.x", loc.getBlockX());
-            cfg.set("mine.pos1.y", loc.getBlockY());
-            cfg.set("mine.pos1.z", loc.getBlockZ());
-            saveConfig();
-
-            sender.sendMessage(ChatColor.GREEN + "Mine corner 1 set to "
-                    + loc.getBlockX() + ", " + loc.getBlockY() + ", " + loc.getBlockZ()
-                    + " in world '" + loc.getWorld().getName() + "'.");
-            // Reload region in case pos2 already exists
-            loadRegion();
-            return true;
+            return perfCommand(sender, args);
         }
 
-        // /mine2 – set second corner at player location
-        if (name.equals("mine2")) {
+        // /mine1 [name] and /mine2 [name] – set a corner at player location
+        if (name.equals("mine1") || name.equals("mine2")) {
             if (!(sender instanceof Player)) {
                 sender.sendMessage(ChatColor.RED + "Only players can use this command.");
                 return true;
@@ -92,28 +195,34 @@ public class Wintermine extends JavaPlugin {
                 return true;
             }
 
+            String mineName = args.length > 0 ? MineRegistry.normalize(args[0]) : DEFAULT_MINE;
+            if (!MineRegistry.isValidName(mineName) || mineName.equals("all")) {
+                sender.sendMessage(ChatColor.RED + "Mine names may only use a-z, 0-9, _ and - (max 32 characters).");
+                return true;
+            }
+
+            int corner = name.equals("mine1") ? 1 : 2;
             Player p = (Player) sender;
             Location loc = p.getLocation();
-            FileConfiguration cfg = getConfig();
+            MineDefinition def = mineConfigs.getOrCreate(mineName);
 
-            // assume world already set from /mine1, but set it again just in case
-            cfg.set("mine.world", loc.getWorld().getName());
-            cfg.set("mine.pos2.x", loc.getBlockX());
-            cfg.set("mine.pos2.y", loc.getBlockY());
-            cfg.set("mine.pos2.z", loc.getBlockZ());
-            saveConfig();
+            // both corners live in the same world, so /mine2 sets it again just in case
+            def.world = loc.getWorld().getName();
+            def.setCorner(corner, new MineDefinition.Corner(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()));
+            mineConfigs.changed();
 
-            sender.sendMessage(ChatColor.GREEN + "Mine corner 2 set to "
+            sender.sendMessage(ChatColor.GREEN + "Mine '" + mineName + "' corner " + corner + " set to "
                     + loc.getBlockX() + ", " + loc.getBlockY() + ", " + loc.getBlockZ()
                     + " in world '" + loc.getWorld().getName() + "'.");
 
-            // Reload region now that both corners may be set
-            loadRegion();
+            // Rebuild just this mine now that both corners may be set
+            Mine mine = reloadMine(mineName);
 
-            if (region != null && region.valid()) {
-                sender.sendMessage(ChatColor.AQUA + "Mine region updated. You can now use /resetmine.");
-            } else {
-                sender.sendMessage(ChatColor.DARK_GREEN + "Mine region is still invalid – make sure both /mine1 and /mine2 are set in the same world.");
+            if (mine != null) {
+                sender.sendMessage(ChatColor.AQUA + "Mine region updated. You can now use /resetmine " + mineName + ".");
+            } else if (corner == 2) {
+                sender.sendMessage(ChatColor.DARK_GREEN + "Mine region is still invalid – make sure both /mine1 "
+                        + mineName + " and /mine2 " + mineName + " are set in the same world.");
             }
             return true;
         }
@@ -121,139 +230,303 @@ public class Wintermine extends JavaPlugin {
         return false;
     }
 
-    // ======================= RESET LOGIC ======================= //
-
-    private void resetMine() {
-        if (region == null || !region.valid()) {
-            getLogger().warning("Mine region is invalid, cannot reset.");
-            return;
+    private boolean perfCommand(CommandSender sender, String[] args) {
+        if (args.length > 1) {
+            switch (args[1].toLowerCase(Locale.ROOT)) {
+                case "on" -> perf.setEnabled(true);
+                case "off" -> perf.setEnabled(false);
+                case "reset" -> perf.reset();
+                default -> {
+                    sender.sendMessage(ChatColor.RED + "Usage: /mine perf [on|off|reset]");
+                    return true;
+                }
+            }
         }
+        sender.sendMessage(ChatColor.YELLOW + "Perf metrics "
+                + (perf.isEnabled() ? ChatColor.GREEN + "on" : ChatColor.RED + "off")
+                + ChatColor.YELLOW + ", last " + perf.windowSeconds() + "s:");
+        for (String line : perf.report()) {
+            sender.sendMessage(ChatColor.GRAY + line);
+        }
+        return true;
+    }
 
-        World w = region.world;
-
-        int GAP = 1; // <-- change to 2 if you want a 2-block gap
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command cmd, String label, String[] args) {
+        List<String> out = new ArrayList<>();
+        if (args.length != 1) return out;
+
+        String prefix = args[0].toLowerCase(Locale.ROOT);
+        if (cmd.getName().equalsIgnoreCase("mine")) {
+            if ("perf".startsWith(prefix)) out.add("perf");
+            return out;
+        }
+        Collection<String> names = mineConfigs.names();
+        if (cmd.getName().equalsIgnoreCase("resetmine") && "all".startsWith(prefix)) {
+            out.add("all");
+        }
+        for (String n : names) {
+            if (n.startsWith(prefix)) {
+                out.add(n);
+            }
+        }
+        return out;
+    }
 
-        for (int x = region.minX; x <= region.maxX; x++) {
-            for (int y = region.minY; y <= region.maxY; y++) {
-                for (int z = region.minZ; z <= region.maxZ; z++) {
+    // ======================= RESET LOGIC ======================= //
 
-                    Block block = w.getBlockAt(x, y, z);
+    private MineResetJob manualReset(Mine mine, CommandSender progressTo) {
+        return resetMine(mine, new MineResetJob.Listener() {
+            private int lastQuarter;
+
+            @Override
+            public void onProgress(MineResetJob job) {
+                if (progressTo == null) return;
+                int quarter = (int) (job.progress() * 4);
+                if (quarter > lastQuarter) {
+                    lastQuarter = quarter;
+                    progressTo.sendMessage(ChatColor.GRAY + "Mine '" + mine.name + "' reset " + (quarter * 25) + "% done...");
+                }
+            }
 
-                    boolean isWall =
-                            x == region.minX ||
-                                    x == region.maxX ||
-                                    z == region.minZ ||
-                                    z == region.maxZ ||
-                                    y == region.minY;
+            @Override
+            public void onFinish(MineResetJob job) {
+                Bukkit.broadcastMessage(ChatColor.AQUA + "[Mine] " + ChatColor.YELLOW +
+                        "The mine '" + mine.name + "' was manually reset!");
+            }
+        });
+    }
 
-                    boolean isGap =
-                            x <= region.minX + GAP ||
-                                    x >= region.maxX - GAP ||
-                                    z <= region.minZ + GAP ||
-                                    z >= region.maxZ - GAP ||
-                                    y <= region.minY + GAP;
+    private void autoReset(Mine mine) {
+        String reason = mine.earlyResetRequested ? "was mined out and has reset!" : "has automatically reset!";
+        resetMine(mine, job -> Bukkit.broadcastMessage(ChatColor.AQUA + "[Mine] " + ChatColor.YELLOW +
+                "Mine '" + mine.name + "' " + reason));
+    }
 
-                    if (isWall) {
-                        block.setType(Material.BEDROCK, false);
-                    }
-                    else if (isGap) {
-                        block.setType(Material.AIR, false);
-                    }
-                    else {
-                        block.setType(Material.SNOW_BLOCK, false);
-                    }
-                }
-            }
+    /**
+     * Queues a reset of the mine on the reset engine. Blocks are written over the following
+     * ticks within the shared budget; {@code listener} is told about progress and completion.
+     * The mine's next automatic reset moves to one interval from now.
+     *
+     * @return the queued job, or null if a reset of this mine is already queued or running
+     */
+    private MineResetJob resetMine(Mine mine, MineResetJob.Listener listener) {
+        long start = perf.start();
+        if (mine.isResetting()) {
+            getLogger().info("Reset of mine '" + mine.name + "' requested while it is still resetting, ignoring.");
+            resetProbe.fastExit(start);
+            return null;
         }
 
-        getLogger().info("Mine Reset Successfully (with gap).");
-    }
+        // Only rewrite what players changed, unless so much changed that a sweep is cheaper
+        MineDirtyTracker.Dirty dirty = mine.dirtyTracker.take(getConfig().getDouble("reset.full-sweep-threshold", 0.25));
 
+        // A diff reset writes scattered blocks that are known to be dirty, so comparing them
+        // against a chunk snapshot first would only add work
+        MineBlockWriter writer = dirty != null
+                ? new MineBlockWriter.BukkitWriter()
+                : MineBlockWriter.create(getConfig().getString("reset.writer", "section"));
 
-    // ======================= TIMER ======================= //
+        // A fixed seed makes every reset place the same mix; without one each reset differs
+        long seed = getConfig().contains("reset.seed")
+                ? getConfig().getLong("reset.seed")
+                : ThreadLocalRandom.current().nextLong();
 
-    private void startAutoReset() {
-        int minutes = getConfig().getInt("auto-reset-minutes", 5);
-        long ticks = minutes * 60L * 20L;
+        mine.activeJob = resetEngine.submit(mine.layout, writer, dirty, seed, new MineResetJob.Listener() {
+            @Override
+            public void beforeChunk(MineResetJob job, int cx, int cz) {
+                evacuate(mine, cx, cz);
+            }
 
-        if (ticks <= 0) {
-            getLogger().warning("auto-reset-minutes <= 0, auto reset disabled.");
-            return;
-        }
+            @Override
+            public void onProgress(MineResetJob job) {
+                listener.onProgress(job);
+            }
 
-        taskId = Bukkit.getScheduler().scheduleSyncRepeatingTask(
-                this,
-                () -> {
-                    resetMine();
-                    Bukkit.broadcastMessage(ChatColor.AQUA + "[Mine] " + ChatColor.YELLOW +
-                            "Wintermine has automatically reset!");
-                },
-                ticks,
-                ticks
-        );
+            @Override
+            public void onFinish(MineResetJob job) {
+                mine.activeJob = null;
+                mine.oreRemaining = mine.layout.oreBlocks();
+                resetProbe.addUnits(job.blocksWritten());
+                getLogger().info("Mine '" + mine.name + "' Reset Successfully (with gap). "
+                        + (job.isFullSweep() ? "Full sweep, " : "Diff reset, ")
+                        + job.blocksChanged() + "/" + job.blocksWritten() + " blocks changed in "
+                        + job.ticks() + " tick(s), " + job.elapsedMillis() + " ms.");
+                listener.onFinish(job);
+            }
+        });
+        mine.earlyResetRequested = false;
+        mine.lastResetTick = scheduler.currentTick();
+        scheduler.schedule(mine);
+        resetProbe.stop(start);
+        return mine.activeJob;
     }
 
-    // ======================= REGION LOADER ======================= //
+    /**
+     * Moves players standing in the mine's part of the chunk column out of the way before it is
+     * refilled: to the mine's safe point, or straight up on top of the region. Runs for every
+     * column a reset reaches, and again each tick the reset resumes in it, so players who walk
+     * in while a reset is spread over several ticks are caught as well.
+     */
+    private void evacuate(Mine mine, int cx, int cz) {
+        Collection<Player> nearby = players.playersIn(mine.region.world, cx, cz);
+        if (nearby.isEmpty()) return;
+
+        MineRegion r = mine.region;
+        for (Player player : new ArrayList<>(nearby)) {
+            Location loc = player.getLocation();
+            int x = loc.getBlockX();
+            int y = loc.getBlockY();
+            int z = loc.getBlockZ();
+            // Feet one block below the region still leave the head inside it
+            if (x < r.minX || x > r.maxX || z < r.minZ || z > r.maxZ || y < r.minY - 1 || y > r.maxY) {
+                continue;
+            }
 
-    private void loadRegion() {
-        FileConfiguration cfg = getConfig();
+            Location target = mine.safePoint != null
+                    ? mine.safePoint.clone()
+                    : new Location(r.world, loc.getX(), r.maxY + 1, loc.getZ(), loc.getYaw(), loc.getPitch());
+            player.setFallDistance(0f);
+            player.teleport(target);
+            player.sendMessage(ChatColor.AQUA + "[Mine] " + ChatColor.YELLOW
+                    + "You were moved out of mine '" + mine.name + "' while it resets.");
+        }
+    }
 
-        String worldName = cfg.getString("mine.world");
-        if (worldName == null || worldName.isEmpty()) {
-            region = null;
-            return;
+    /**
+     * Rebuilds one mine from its definition and reschedules it. Other mines are left alone.
+     * A reset of the old mine still queued or running is cancelled: it would fill the old
+     * region with the old layout, and the new mine's first reset sweeps its region anyway.
+     *
+     * @return the new mine, or null if its config is incomplete or invalid
+     */
+    private Mine reloadMine(String name) {
+        Mine old = mines.get(name);
+        if (old != null) {
+            scheduler.unschedule(old);
+            if (old.activeJob != null) {
+                resetEngine.cancel(old.activeJob);
+                old.activeJob = null;
+                getLogger().info("Cancelled the running reset of mine '" + old.name + "' because it was redefined.");
+            }
         }
 
-        World world = Bukkit.getWorld(worldName);
-        if (world == null) {
-            getLogger().severe("Invalid world name in config.yml: " + worldName);
-            region = null;
-            return;
+        Mine mine = mines.reload(name, mineConfigs.get(name), getConfig());
+        if (mine != null) {
+            scheduler.schedule(mine);
         }
+        return mine;
+    }
 
-        if (!cfg.contains("mine.pos1.x") || !cfg.contains("mine.pos2.x")) {
-            region = null;
+    // ======================= BLOCK TRACKING ======================= //
+    // Everything that can change a block inside a mine marks it dirty for the next reset.
+    // Changes to core blocks also move the mine's remaining-ore counter: -1 when one of the
+    // core's own materials is removed, +1 when one is put back. Anything else a player puts in
+    // a hole counts neither way, or cobblestone could hold off an early reset or, broken again
+    // and again, force one.
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        long start = perf.start();
+        Block block = event.getBlock();
+        if (blockChanged(block.getWorld(), block.getX(), block.getY(), block.getZ(), block.getType(), -1)) {
+            blockBreakProbe.stop(start);
+        } else {
+            blockBreakProbe.fastExit(start);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        if (event instanceof BlockMultiPlaceEvent multi) {
+            for (BlockState state : multi.getReplacedBlockStates()) {
+                blockPlaced(state.getWorld(), state.getX(), state.getY(), state.getZ(), state.getBlock().getType());
+            }
             return;
         }
+        Block placed = event.getBlockPlaced();
+        blockPlaced(placed.getWorld(), placed.getX(), placed.getY(), placed.getZ(), placed.getType());
+    }
 
-        int x1 = cfg.getInt("mine.pos1.x");
-        int y1 = cfg.getInt("mine.pos1.y");
-        int z1 = cfg.getInt("mine.pos1.z");
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        blockChanged(event.blockList(), -1);
+    }
 
-        int x2 = cfg.getInt("mine.pos2.x");
-        int y2 = cfg.getInt("mine.pos2.y");
-        int z2 = cfg.getInt("mine.pos2.z");
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        blockChanged(event.blockList(), -1);
+    }
 
-        region = new MineRegion(world, x1, y1, z1, x2, y2, z2);
+    // Ice melting, snow layers fading
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent event) {
+        blockChanged(event.getBlock(), -1);
+    }
 
-        if (region.valid()) {
-            getLogger().info("Mine region loaded: (" +
-                    region.minX + "," + region.minY + "," + region.minZ + ") to (" +
-                    region.maxX + "," + region.maxY + "," + region.maxZ + ") in world " +
-                    world.getName());
-        } else {
-            getLogger().warning("Mine region is invalid after loading.");
+    // Water or lava flowing into the mine; only flows into air or through non-solid blocks,
+    // so the core count is left alone
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFlow(BlockFromToEvent event) {
+        blockChanged(event.getToBlock(), 0);
+    }
+
+    private void blockChanged(List<Block> blocks, int oreDelta) {
+        for (Block block : blocks) {
+            blockChanged(block, oreDelta);
         }
     }
 
-    // ======================= REGION CLASS ======================= //
+    private void blockChanged(Block block, int oreDelta) {
+        blockChanged(block.getWorld(), block.getX(), block.getY(), block.getZ(), block.getType(), oreDelta);
+    }
 
-    private static class MineRegion {
-        World world;
-        int minX, maxX, minY, maxY, minZ, maxZ;
+    private void blockPlaced(World world, int x, int y, int z, Material placed) {
+        Mine mine = mines.mineAt(world, x, y, z);
+        if (mine == null) return;
+        mine.dirtyTracker.mark(world, x, y, z);
+        if (!mine.isResetting() && mine.layout.isOreMaterialAt(x, y, z, placed)) {
+            mine.addOre(1);
+        }
+    }
 
-        MineRegion(World w, int x1, int y1, int z1, int x2, int y2, int z2) {
-            world = w;
-            minX = Math.min(x1, x2);
-            maxX = Math.max(x1, x2);
-            minY = Math.min(y1, y2);
-            maxY = Math.max(y1, y2);
-            minZ = Math.min(z1, z2);
-            maxZ = Math.max(z1, z2);
+    /**
+     * @param removed what the block was before the change
+     * @return whether the block is in a mine
+     */
+    private boolean blockChanged(World world, int x, int y, int z, Material removed, int oreDelta) {
+        Mine mine = mines.mineAt(world, x, y, z);
+        if (mine == null) {
+            return false;
         }
+        mine.dirtyTracker.mark(world, x, y, z);
 
-        boolean valid() {
-            return world != null && minX <= maxX && minY <= maxY && minZ <= maxZ;
+        // The count starts over when a reset finishes, so changes during one don't count; those
+        // behind the reset's cursor stay marked dirty for the next reset
+        if (oreDelta == 0 || mine.isResetting() || !mine.layout.isOreMaterialAt(x, y, z, removed)) {
+            return true;
         }
+        mine.addOre(oreDelta);
+        if (oreDelta < 0 && !mine.earlyResetRequested && mine.isBelowResetThreshold()) {
+            requestEarlyReset(mine);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the mine's next reset forward because it was mined below its remaining-ore
+     * threshold, but never sooner than {@code reset.min-cooldown-seconds} after its last reset.
+     */
+    private void requestEarlyReset(Mine mine) {
+        long cooldownTicks = Math.max(0L, getConfig().getLong("reset.min-cooldown-seconds", 60L)) * 20L;
+        long sinceLast = mine.lastResetTick == Long.MIN_VALUE
+                ? Long.MAX_VALUE
+                : scheduler.currentTick() - mine.lastResetTick;
+        long delay = sinceLast >= cooldownTicks ? 0L : cooldownTicks - sinceLast;
+
+        mine.earlyResetRequested = true;
+        scheduler.scheduleSooner(mine, delay);
+        getLogger().info("Mine '" + mine.name + "' is down to " + Math.round(mine.oreFraction() * 100)
+                + "% of its core, resetting " + (delay == 0 ? "now." : "in " + (delay / 20L) + "s."));
     }
 }